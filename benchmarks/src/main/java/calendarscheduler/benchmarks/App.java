@@ -0,0 +1,397 @@
+package calendarscheduler.benchmarks;
+
+import javax.swing.*;
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * @author Audreen Soh
+ * <p>
+ * This class gives the benchmarks access to the application classes.
+ * The application classes are in the default package, which cannot be imported from a named package and
+ * JMH does not allow benchmarks in the default package, so they are called through method handles.
+ * The handles are static final, so the JIT compiles the calls like direct calls.
+ */
+final class App {
+    static final Class<?> DATABASE = load("Database");
+    static final Class<?> TASK = load("Task");
+    static final Class<?> ASYNC_DATABASE = load("AsyncDatabase");
+    static final Class<?> CALENDAR_MODEL = load("CalendarModel");
+
+    // Task columns filled by insertTasks
+    private static final String[] taskColumns = {"title", "description", "category", "isDone", "date", "time"};
+    private static final String[] categories = {"General", "Holiday", "Personal", "Meeting", "Social"};
+    // First day of the generated tasks
+    static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+
+    private static final MethodHandle newDatabase = constructor(DATABASE, File.class);
+    private static final MethodHandle getTasks = method(DATABASE, "getTasks", ArrayList.class, LocalDate.class);
+    private static final MethodHandle hasTasks = method(DATABASE, "hasTasks", boolean.class, LocalDate.class);
+    private static final MethodHandle createTask = method(DATABASE, "createTask", void.class, TASK);
+    private static final MethodHandle updateTask = method(DATABASE, "updateTask", void.class, TASK);
+    private static final MethodHandle deleteTask = method(DATABASE, "deleteTask", void.class, int.class);
+    private static final MethodHandle bulkInsert = method(DATABASE, "bulkInsert", int.class, String.class, String[].class, Iterator.class);
+    private static final MethodHandle saveSnapshot = method(DATABASE, "saveSnapshot", void.class);
+    private static final MethodHandle closeConnection = method(DATABASE, "closeConnection", void.class);
+    private static final MethodHandle async = method(DATABASE, "async", ASYNC_DATABASE);
+    private static final MethodHandle getPending = method(ASYNC_DATABASE, "getPending", int.class);
+
+    private static final MethodHandle newTask = constructor(TASK, LocalDate.class);
+    private static final MethodHandle copyTask = constructor(TASK, TASK);
+    private static final MethodHandle getTitle = method(TASK, "getTitle", String.class);
+    private static final MethodHandle setTitle = method(TASK, "setTitle", void.class, String.class);
+    private static final MethodHandle setCategory = method(TASK, "setCategory", void.class, String.class);
+    private static final MethodHandle setDescription = method(TASK, "setDescription", void.class, String.class);
+    private static final MethodHandle setDone = method(TASK, "setDone", void.class, boolean.class);
+    private static final MethodHandle isDone = method(TASK, "isDone", boolean.class);
+    private static final MethodHandle getID = method(TASK, "getID", int.class);
+    private static final MethodHandle setTime = method(TASK, "setTime", void.class, String.class);
+    private static final MethodHandle getTimeToString = method(TASK, "getTimeToString", String.class);
+    private static final MethodHandle getDateTimeToString = method(TASK, "getDateTimeToString", String.class);
+    private static final MethodHandle setDateTimeFromString = method(TASK, "setDateTimeFromString", void.class, String.class);
+
+    private static final MethodHandle newCalendarModel = constructor(CALENDAR_MODEL, LocalDate.class);
+    private static final MethodHandle newCalendar = constructor(load("Calendar"), CALENDAR_MODEL, JFrame.class, JPanel.class, DATABASE);
+    private static final MethodHandle newTasks = constructor(load("Tasks"), CALENDAR_MODEL, DATABASE);
+    private static final MethodHandle newDayScheduleTasks = constructor(load("DayScheduleTasks"), CALENDAR_MODEL, DATABASE);
+    private static final MethodHandle newDaySchedule = constructor(load("DaySchedule"), JFrame.class, LocalDate.class, DATABASE);
+
+    private App() {
+    }
+
+    /**
+     * Database calls
+     */
+    static Object newDatabase(File directory) {
+        try {
+            return (Object) newDatabase.invokeExact(directory);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static ArrayList<?> getTasks(Object database, LocalDate date) {
+        try {
+            return (ArrayList<?>) getTasks.invokeExact(database, date);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static boolean hasTasks(Object database, LocalDate date) {
+        try {
+            return (boolean) hasTasks.invokeExact(database, date);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static void createTask(Object database, Object task) {
+        try {
+            createTask.invokeExact(database, task);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static void updateTask(Object database, Object task) {
+        try {
+            updateTask.invokeExact(database, task);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static void deleteTask(Object database, int ID) {
+        try {
+            deleteTask.invokeExact(database, ID);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static void saveSnapshot(Object database) {
+        try {
+            saveSnapshot.invokeExact(database);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static void closeConnection(Object database) {
+        try {
+            closeConnection.invokeExact(database);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * awaitIdle - Wait until the reads and writes started through the asynchronous database have completed,
+     * and their callbacks on the event dispatch thread have run.
+     * Must not be called on the event dispatch thread.
+     *
+     * @param database The database
+     */
+    static void awaitIdle(Object database) {
+        try {
+            Object asyncDatabase = (Object) async.invokeExact(database);
+            do {
+                while ((int) getPending.invokeExact(asyncDatabase) > 0) {
+                    Thread.yield();
+                }
+                // Let the callbacks queued on the event dispatch thread run, they may start more calls
+                SwingUtilities.invokeAndWait(() -> {
+                });
+            } while ((int) getPending.invokeExact(asyncDatabase) > 0);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * newPanel - Create a panel of the application showing a day.
+     * Must be called on the event dispatch thread.
+     *
+     * @param panel    The panel class name, Calendar, Tasks, DayScheduleTasks or DaySchedule
+     * @param database The database
+     * @param day      The day to show
+     * @return The panel
+     */
+    static JPanel newPanel(String panel, Object database, LocalDate day) {
+        try {
+            switch (panel) {
+                case "Calendar":
+                    return (JPanel) newCalendar.invokeExact((Object) newCalendarModel.invokeExact(day), (JFrame) null, new JPanel(), database);
+                case "Tasks":
+                    return (JPanel) newTasks.invokeExact((Object) newCalendarModel.invokeExact(day), database);
+                case "DayScheduleTasks":
+                    return (JPanel) newDayScheduleTasks.invokeExact((Object) newCalendarModel.invokeExact(day), database);
+                case "DaySchedule":
+                    return (JPanel) newDaySchedule.invokeExact((JFrame) null, day, database);
+                default:
+                    throw new IllegalArgumentException("Unknown panel " + panel);
+            }
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * insertTasks - Insert generated tasks, a number of tasks per day from FIRST_DAY on
+     *
+     * @param database    The database
+     * @param tasks       The number of tasks
+     * @param tasksPerDay The number of tasks on each day
+     * @return The number of days which have tasks
+     */
+    static int insertTasks(Object database, int tasks, int tasksPerDay) {
+        Iterator<Object[]> rows = IntStream.range(0, tasks).mapToObj(i -> new Object[]{
+                "Task " + i,
+                "Description of task " + i,
+                categories[i % categories.length],
+                i % 3 == 0,
+                FIRST_DAY.plusDays(i / tasksPerDay),
+                LocalTime.of(8, 0).plusMinutes(10L * (i % tasksPerDay))
+        }).iterator();
+        try {
+            int inserted = (int) bulkInsert.invokeExact(database, "task", taskColumns, rows);
+            if (inserted != tasks) {
+                throw new IllegalStateException("Inserted " + inserted + " of " + tasks + " tasks");
+            }
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+        return (tasks + tasksPerDay - 1) / tasksPerDay;
+    }
+
+    /**
+     * Task calls
+     */
+    static Object newTask(LocalDate date, String title) {
+        try {
+            Object task = (Object) newTask.invokeExact(date);
+            setTitle.invokeExact(task, title);
+            setCategory.invokeExact(task, "General");
+            setDescription.invokeExact(task, "");
+            setDone.invokeExact(task, false);
+            return task;
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static Object copyTask(Object task) {
+        try {
+            return (Object) copyTask.invokeExact(task);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static String getTitle(Object task) {
+        try {
+            return (String) getTitle.invokeExact(task);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static void setTitle(Object task, String title) {
+        try {
+            setTitle.invokeExact(task, title);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static void setDone(Object task, boolean done) {
+        try {
+            setDone.invokeExact(task, done);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static boolean isDone(Object task) {
+        try {
+            return (boolean) isDone.invokeExact(task);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static int getID(Object task) {
+        try {
+            return (int) getID.invokeExact(task);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static void setTime(Object task, String time) {
+        try {
+            setTime.invokeExact(task, time);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static String getTimeToString(Object task) {
+        try {
+            return (String) getTimeToString.invokeExact(task);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static String getDateTimeToString(Object task) {
+        try {
+            return (String) getDateTimeToString.invokeExact(task);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static void setDateTimeFromString(Object task, String dateTime) {
+        try {
+            setDateTimeFromString.invokeExact(task, dateTime);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * Temporary directories for the database files, so the benchmarks never touch the application data
+     */
+    static File createDirectory() {
+        try {
+            return Files.createTempDirectory("calendar-benchmark").toFile();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static void deleteDirectory(File directory) {
+        try (Stream<Path> files = Files.walk(directory.toPath())) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Method handle lookups, the handles are adapted to take the application objects as Object
+     */
+    private static Class<?> load(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("The application classes are not on the classpath", e);
+        }
+    }
+
+    private static MethodHandle constructor(Class<?> type, Class<?>... parameters) {
+        try {
+            MethodHandle handle = MethodHandles.publicLookup().findConstructor(type, MethodType.methodType(void.class, parameters));
+            return handle.asType(erase(handle.type()));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MethodHandle method(Class<?> type, String name, Class<?> returnType, Class<?>... parameters) {
+        try {
+            MethodHandle handle = MethodHandles.publicLookup().findVirtual(type, name, MethodType.methodType(returnType, parameters));
+            return handle.asType(erase(handle.type()));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * erase - Replace the application classes of a method type with Object, the panels are returned as JPanel
+     */
+    private static MethodType erase(MethodType type) {
+        MethodType erased = type;
+        for (int i = 0; i < type.parameterCount(); i++) {
+            if (isApplicationClass(type.parameterType(i))) {
+                erased = erased.changeParameterType(i, Object.class);
+            }
+        }
+        Class<?> returnType = type.returnType();
+        if (isApplicationClass(returnType)) {
+            erased = erased.changeReturnType(JPanel.class.isAssignableFrom(returnType) ? JPanel.class : Object.class);
+        }
+        return erased;
+    }
+
+    /**
+     * isApplicationClass - The application classes are the classes of the default package
+     */
+    private static boolean isApplicationClass(Class<?> type) {
+        return !type.isPrimitive() && !type.isArray() && type.getName().indexOf('.') < 0;
+    }
+
+    private static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException) {
+            return (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        return new IllegalStateException(t);
+    }
+}
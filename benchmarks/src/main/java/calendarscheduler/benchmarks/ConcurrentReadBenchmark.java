@@ -0,0 +1,195 @@
+package calendarscheduler.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Audreen Soh
+ * <p>
+ * Benchmarks of the task reads of the database from 1, 2 and 4 threads and from one thread per core,
+ * to measure how the reads scale over the connection pool. The time is the average time of one read in one thread,
+ * so it stays the same as threads are added while the reads scale linearly, up to the number of cores.
+ * <p>
+ * The readWrite group runs the reads while another thread updates a task, and checks that no read returns the task
+ * as it was before an update which had already finished when the read started, so a stale task cache entry fails the run.
+ * The journal compaction is disabled as in DatabaseBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dcalendar.compactThreshold=2147483647"})
+public class ConcurrentReadBenchmark {
+    // Number of tasks on each day of the dataset
+    private static final int tasksPerDay = 20;
+
+    @Param({"1000", "100000"})
+    public int tasks;
+
+    private File directory;
+    private Object database;
+    private int days;
+    // Task updated by the writer of the readWrite group, its title is the number of the last update
+    private Object task;
+    private int taskID;
+    private LocalDate taskDay;
+    // Number of the last update which has finished
+    private final AtomicInteger written = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        directory = App.createDirectory();
+        database = App.newDatabase(directory);
+        days = App.insertTasks(database, tasks, tasksPerDay);
+        taskDay = App.FIRST_DAY;
+        task = App.copyTask(App.getTasks(database, taskDay).get(0));
+        taskID = App.getID(task);
+        App.setTitle(task, "0");
+        App.updateTask(database, task);
+        App.saveSnapshot(database);
+    }
+
+    /**
+     * compact - Write the snapshot and empty the journal left by the previous iteration
+     */
+    @Setup(Level.Iteration)
+    public void compact() {
+        App.saveSnapshot(database);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        App.closeConnection(database);
+        App.deleteDirectory(directory);
+    }
+
+    private LocalDate randomDay() {
+        return App.FIRST_DAY.plusDays(ThreadLocalRandom.current().nextInt(days));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public List<?> getTasks1() {
+        return App.getTasks(database, randomDay());
+    }
+
+    @Benchmark
+    @Threads(2)
+    public List<?> getTasks2() {
+        return App.getTasks(database, randomDay());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<?> getTasks4() {
+        return App.getTasks(database, randomDay());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public List<?> getTasksMax() {
+        return App.getTasks(database, randomDay());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean hasTasks1() {
+        return App.hasTasks(database, randomDay());
+    }
+
+    @Benchmark
+    @Threads(2)
+    public boolean hasTasks2() {
+        return App.hasTasks(database, randomDay());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean hasTasks4() {
+        return App.hasTasks(database, randomDay());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean hasTasksMax() {
+        return App.hasTasks(database, randomDay());
+    }
+
+    /**
+     * readRandomDay - Read the tasks of a random day while the task is updated
+     */
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(2)
+    public List<?> readRandomDay() {
+        return App.getTasks(database, randomDay());
+    }
+
+    /**
+     * readUpdatedDay - Read the day of the updated task, failing if the task is older than the last finished update
+     */
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public int readUpdatedDay() {
+        return checkTitle(written.get());
+    }
+
+    /**
+     * update - Update the title of the task and read it back
+     */
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public int update() {
+        int version = written.get() + 1;
+        // A copy, so the update does not change the task in the cached lists the readers hold
+        Object updated = App.copyTask(task);
+        App.setTitle(updated, Integer.toString(version));
+        App.updateTask(database, updated);
+        task = updated;
+        written.set(version);
+        return checkTitle(version);
+    }
+
+    /**
+     * checkTitle - Read the day of the updated task and check the task is not older than an update
+     *
+     * @param version The number of an update which finished before the read
+     * @return The number of the update read
+     */
+    private int checkTitle(int version) {
+        for (Object t : App.getTasks(database, taskDay)) {
+            if (App.getID(t) == taskID) {
+                int read = Integer.parseInt(App.getTitle(t));
+                if (read < version) {
+                    throw new IllegalStateException("Read update " + read + " of the task after update " + version + " had finished");
+                }
+                return read;
+            }
+        }
+        throw new IllegalStateException("The updated task is missing from " + taskDay);
+    }
+}
@@ -0,0 +1,108 @@
+package calendarscheduler.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Audreen Soh
+ * <p>
+ * Benchmarks of the task reads and writes of the database, for databases of 10 to 1M tasks.
+ * The days are picked at random over the whole dataset, so the reads see the task cache as the application does.
+ * The reads can run from many threads, for example with -t 4, to measure how they scale.
+ * <p>
+ * The benchmarks run with the journal compaction disabled through the calendar.compactThreshold system property,
+ * as a compaction writes the whole dataset to the snapshot in the background and would hold the database lock
+ * while the writes are measured. The journal written by an iteration is compacted before the next one, outside the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dcalendar.compactThreshold=2147483647"})
+public class DatabaseBenchmark {
+    // Number of tasks on each day of the dataset
+    private static final int tasksPerDay = 20;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int tasks;
+
+    private File directory;
+    private Object database;
+    private int days;
+    // Task changed by the update benchmark
+    private Object task;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        directory = App.createDirectory();
+        database = App.newDatabase(directory);
+        days = App.insertTasks(database, tasks, tasksPerDay);
+        // Wait for the compaction scheduled when the database was created, so it does not run while measuring
+        App.saveSnapshot(database);
+        task = App.getTasks(database, App.FIRST_DAY).get(0);
+    }
+
+    /**
+     * compact - Write the snapshot and empty the journal left by the previous iteration
+     */
+    @Setup(Level.Iteration)
+    public void compact() {
+        App.saveSnapshot(database);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        App.closeConnection(database);
+        App.deleteDirectory(directory);
+    }
+
+    private LocalDate randomDay() {
+        return App.FIRST_DAY.plusDays(ThreadLocalRandom.current().nextInt(days));
+    }
+
+    @Benchmark
+    public List<?> getTasks() {
+        return App.getTasks(database, randomDay());
+    }
+
+    @Benchmark
+    public boolean hasTasks() {
+        return App.hasTasks(database, randomDay());
+    }
+
+    /**
+     * createTask - Create a task, and delete it again so the dataset keeps its size
+     */
+    @Benchmark
+    public int createTask() {
+        Object created = App.newTask(randomDay(), "Benchmark task");
+        App.createTask(database, created);
+        int ID = App.getID(created);
+        App.deleteTask(database, ID);
+        return ID;
+    }
+
+    @Benchmark
+    public void updateTask() {
+        App.setDone(task, !App.isDone(task));
+        App.updateTask(database, task);
+    }
+}
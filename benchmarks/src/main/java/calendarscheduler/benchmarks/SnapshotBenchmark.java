@@ -0,0 +1,101 @@
+package calendarscheduler.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Audreen Soh
+ * <p>
+ * Benchmarks of loading the database from the snapshot file on start up, and of writing the snapshot,
+ * for databases of 10 to 1M tasks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SnapshotBenchmark {
+
+    /**
+     * A directory with a snapshot of the dataset and no database open
+     */
+    @State(Scope.Benchmark)
+    public static class Snapshot {
+        @Param({"10", "1000", "100000", "1000000"})
+        public int tasks;
+
+        File directory;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            directory = App.createDirectory();
+            Object database = App.newDatabase(directory);
+            App.insertTasks(database, tasks, 20);
+            App.saveSnapshot(database);
+            App.closeConnection(database);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            App.deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * An open database of the dataset
+     */
+    @State(Scope.Benchmark)
+    public static class Loaded {
+        @Param({"10", "1000", "100000", "1000000"})
+        public int tasks;
+
+        File directory;
+        Object database;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            directory = App.createDirectory();
+            database = App.newDatabase(directory);
+            App.insertTasks(database, tasks, 20);
+            App.saveSnapshot(database);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            App.closeConnection(database);
+            App.deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * load - Open the database from the snapshot, as on start up, and close it again
+     */
+    @Benchmark
+    public Object load(Snapshot snapshot) {
+        Object database = App.newDatabase(snapshot.directory);
+        App.closeConnection(database);
+        return database;
+    }
+
+    /**
+     * save - Write the snapshot of the open database
+     */
+    @Benchmark
+    public void save(Loaded loaded) {
+        App.saveSnapshot(loaded.database);
+    }
+}
@@ -0,0 +1,56 @@
+package calendarscheduler.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Audreen Soh
+ * <p>
+ * Benchmarks of the date and time formatting and parsing of a task, used whenever a task is shown or edited.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskBenchmark {
+    private Object task;
+
+    @Setup
+    public void setUp() {
+        task = App.newTask(App.FIRST_DAY, "Benchmark task");
+    }
+
+    @Benchmark
+    public String getDateTimeToString() {
+        return App.getDateTimeToString(task);
+    }
+
+    @Benchmark
+    public String getTimeToString() {
+        return App.getTimeToString(task);
+    }
+
+    @Benchmark
+    public Object setTime() {
+        App.setTime(task, "09:30");
+        return task;
+    }
+
+    @Benchmark
+    public Object setDateTimeFromString() {
+        App.setDateTimeFromString(task, "03-05-2024 | 09:30");
+        return task;
+    }
+}
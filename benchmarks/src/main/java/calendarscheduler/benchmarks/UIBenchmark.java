@@ -0,0 +1,148 @@
+package calendarscheduler.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Audreen Soh
+ * <p>
+ * Benchmarks of building, laying out and painting the panels of the application off-screen.
+ * The panels are lightweight Swing components, so they are built and painted into an image in headless mode
+ * and the benchmarks run on a build server without a display.
+ * Every step runs on the event dispatch thread, like in the application.
+ * Run with -prof gc to see the allocations of each step.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class UIBenchmark {
+    // Size of the application window
+    private static final int width = 1000;
+    private static final int height = 600;
+    // Number of days of the month which have tasks
+    private static final int days = 28;
+
+    @Param({"Calendar", "Tasks", "DayScheduleTasks", "DaySchedule"})
+    public String panel;
+
+    @Param({"1", "10", "100", "1000"})
+    public int tasksPerDay;
+
+    private File directory;
+    private Object database;
+    // Panel built once for the layout and paint benchmarks
+    private JPanel built;
+    private final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        directory = App.createDirectory();
+        database = App.newDatabase(directory);
+        App.insertTasks(database, tasksPerDay * days, tasksPerDay);
+        App.saveSnapshot(database);
+        built = build();
+        onEventDispatchThread(() -> {
+            built.setSize(width, height);
+            layout(built);
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        App.closeConnection(database);
+        App.deleteDirectory(directory);
+    }
+
+    /**
+     * build - Create the panel and wait until it has loaded and shown its data
+     */
+    @Benchmark
+    public JPanel build() {
+        JPanel[] created = new JPanel[1];
+        onEventDispatchThread(() -> created[0] = App.newPanel(panel, database, App.FIRST_DAY));
+        App.awaitIdle(database);
+        return created[0];
+    }
+
+    /**
+     * layout - Lay out every container of the panel again
+     */
+    @Benchmark
+    public JPanel layout() {
+        onEventDispatchThread(() -> {
+            invalidate(built);
+            layout(built);
+        });
+        return built;
+    }
+
+    /**
+     * paint - Paint the whole panel into an image
+     */
+    @Benchmark
+    public BufferedImage paint() {
+        onEventDispatchThread(() -> {
+            Graphics2D g = image.createGraphics();
+            built.paint(g);
+            g.dispose();
+        });
+        return image;
+    }
+
+    /**
+     * invalidate - Invalidate every component, so the layout managers measure the components again
+     */
+    private static void invalidate(Component c) {
+        c.invalidate();
+        if (c instanceof Container) {
+            for (Component child : ((Container) c).getComponents()) {
+                invalidate(child);
+            }
+        }
+    }
+
+    /**
+     * layout - Lay out a container and the containers in it.
+     * A panel which is not in a window is not validated by Swing, so the layout is done directly.
+     */
+    private static void layout(Component c) {
+        if (c instanceof Container) {
+            ((Container) c).doLayout();
+            for (Component child : ((Container) c).getComponents()) {
+                layout(child);
+            }
+        }
+    }
+
+    private static void onEventDispatchThread(Runnable step) {
+        try {
+            SwingUtilities.invokeAndWait(step);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
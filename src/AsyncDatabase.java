@@ -0,0 +1,158 @@
+import javax.swing.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * @author Audreen Soh
+ * <p>
+ * This class runs the database calls off the Swing event dispatch thread.
+ * Every call returns a CompletableFuture, use {@link #EDT} to apply the result back on the event dispatch thread:
+ * <pre>
+ *     database.async().getTasks(date).thenAcceptAsync(tasks -> showTasks(tasks), AsyncDatabase.EDT);
+ * </pre>
+ * Reads run on virtual threads where the JVM has them, or on a small pool of daemon threads otherwise.
+ * Writes run one at a time on a single writer thread, so they reach the database in the order they were made.
+ */
+public class AsyncDatabase {
+    // Runs the callbacks of a future on the event dispatch thread
+    public static final Executor EDT = AsyncDatabase::onEventDispatchThread;
+
+    private final Database database;
+    private final ExecutorService readers = createReaders();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(daemonThreads("database-writer"));
+    // Number of reads and writes which have not completed yet
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * Class constructor.
+     *
+     * @param database The database object
+     */
+    public AsyncDatabase(Database database) {
+        this.database = database;
+    }
+
+    /**
+     * read - Run a database read on the reader threads
+     *
+     * @param query The read to run
+     * @return The future result of the read
+     */
+    public <T> CompletableFuture<T> read(Supplier<T> query) {
+        pending.incrementAndGet();
+        CompletableFuture<T> future = CompletableFuture.supplyAsync(query, readers);
+        future.whenComplete((result, e) -> pending.decrementAndGet());
+        return future;
+    }
+
+    /**
+     * write - Run a database write on the writer thread
+     *
+     * @param update The write to run
+     * @return A future which completes once the write is done
+     */
+    public CompletableFuture<Void> write(Runnable update) {
+        pending.incrementAndGet();
+        CompletableFuture<Void> future = CompletableFuture.runAsync(update, writer);
+        future.whenComplete((result, e) -> pending.decrementAndGet());
+        return future;
+    }
+
+    /**
+     * getPending - Get the number of reads and writes which have not completed yet.
+     * The callbacks added to the future of a call are started before the call stops counting as pending.
+     *
+     * @return The number of pending calls
+     */
+    public int getPending() {
+        return pending.get();
+    }
+
+    /**
+     * onEventDispatchThread - Queue a callback on the event dispatch thread, timing how long it waits in the queue
+     * and how long it blocks the event dispatch thread when it runs
+     *
+     * @param callback The callback
+     */
+    private static void onEventDispatchThread(Runnable callback) {
+        long queued = System.nanoTime();
+        SwingUtilities.invokeLater(() -> {
+            long start = System.nanoTime();
+            Metrics.record("EDT.wait", queued);
+            try {
+                callback.run();
+            } finally {
+                Metrics.record("EDT.callback", start);
+            }
+        });
+    }
+
+    public CompletableFuture<ArrayList<Task>> getTasks(LocalDate date) {
+        return read(() -> database.getTasks(date));
+    }
+
+    public CompletableFuture<BitSet> getBusyDays(YearMonth month) {
+        return read(() -> database.getBusyDays(month));
+    }
+
+    public CompletableFuture<String> getQuote(int day) {
+        return read(() -> database.getQuote(day));
+    }
+
+    /**
+     * The task writes take a copy of the task, so the UI can keep changing its task while the write is pending.
+     */
+    public CompletableFuture<Void> createTask(Task t) {
+        Task copy = new Task(t);
+        return write(() -> database.createTask(copy));
+    }
+
+    public CompletableFuture<Void> updateTask(Task t) {
+        Task copy = new Task(t);
+        return write(() -> database.updateTask(copy));
+    }
+
+    public CompletableFuture<Void> deleteTask(int ID) {
+        return write(() -> database.deleteTask(ID));
+    }
+
+    /**
+     * shutdown - Stop accepting calls and wait for the pending writes to reach the database
+     */
+    public void shutdown() {
+        readers.shutdown();
+        writer.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * createReaders - Create a virtual thread per task executor on JVMs which have them, else a pool of daemon threads
+     */
+    private static ExecutorService createReaders() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), daemonThreads("database-reader"));
+        }
+    }
+
+    /**
+     * daemonThreads - Thread factory for named daemon threads, which do not keep the application running
+     */
+    private static ThreadFactory daemonThreads(String name) {
+        return r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
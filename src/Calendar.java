@@ -1,11 +1,15 @@
 import javax.swing.*;
-import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * @author Audreen Soh
@@ -13,20 +17,53 @@ import java.time.format.DateTimeFormatter;
  * This class implements an interactive calendar.
  * Click on a date - to manage the task of that specific date.
  * Double click on a date - to open the today's page.
+ * The calendar shows the month and selected day of a calendar model and updates only the day labels a change affects.
  */
-public class Calendar extends JPanel {
+public class Calendar extends JPanel implements CalendarModel.Listener {
+    private static final DateTimeFormatter monthFormatter = DateTimeFormatter.ofPattern("MMMM yyyy");
+
+    private final CalendarModel model;
+    private final JFrame frame;
+    private final JPanel parentPanel;
+    private final Database database;
+
+    // "MONTH yyyy" label above the calendar
+    private final JLabel date;
+    // Number of day cells in the grid, six weeks are enough for any month
+    private static final int CELLS = 42;
+    // Number of months of busy days to keep
+    private static final int CACHED_MONTHS = 24;
+
+    // The day cells, created once and bound to the days of the shown month
+    private final DayLabel[] cells = new DayLabel[CELLS];
+    // The cell of the 1st day of the shown month
+    private int firstCell;
+    private YearMonth month;
+    // The days which have tasks of the shown month and of the recently shown and prefetched months
+    private final Map<YearMonth, BitSet> busyMonths = new LinkedHashMap<YearMonth, BitSet>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<YearMonth, BitSet> eldest) {
+            return size() > CACHED_MONTHS;
+        }
+    };
+    // The months which are being loaded
+    private final Set<YearMonth> loadingMonths = new HashSet<>();
+    // Counts the times the cached months were dropped, so a month loaded before is not cached after
+    private int busyGeneration;
 
     /**
      * Class constructor.
      *
-     * @param year        The interger representation of the year
-     * @param month       The interger representation of the month
-     * @param selectedDay The selected date
+     * @param model       The calendar model holding the selected day and shown month
      * @param frame       The main frame object
      * @param parentPanel The parent panel object
      * @param database    The database object
      */
-    public Calendar(int year, int month, LocalDate selectedDay, JFrame frame, JPanel parentPanel, Database database) {
+    public Calendar(CalendarModel model, JFrame frame, JPanel parentPanel, Database database) {
+        this.model = model;
+        this.frame = frame;
+        this.parentPanel = parentPanel;
+        this.database = database;
 
         // set up calendar panel
         setPreferredSize(new Dimension(400, 400));
@@ -40,28 +77,19 @@ public class Calendar extends JPanel {
         top.setBackground(null);
 
         // Add the months
-        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
-        JLabel date = new JLabel(LocalDate.of(year, month, 1).format(DateTimeFormatter.ofPattern("MMMM yyyy")));
+        date = new JLabel();
         date.setHorizontalAlignment(JLabel.CENTER);
-        date.setFont(new Font("Helvetica", Font.BOLD, 25));
-        date.setForeground(Color.decode("#c1380a"));
+        date.setFont(UIResources.font(Font.BOLD, 25));
+        date.setForeground(UIResources.color("#c1380a"));
         top.add(date, BorderLayout.CENTER);
 
         // Add '<' arrow label which acts like a button to go to the previous month
-        JLabel left = new JLabel(new ImageIcon("resources/arrow-left.png"));
-        left.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        JLabel left = new JLabel(UIResources.icon("arrow-left.png"));
+        left.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
         left.addMouseListener(new MouseListener() {
             @Override
             public void mouseClicked(MouseEvent e) {
-                parentPanel.removeAll();
-
-                // Checks when the left '<' clicked. this decides if it is moving left by one month/one year
-                // if it is january, we have to perform year - 1, else month - 1
-                if (month != 1) {
-                    resetMainPanel(frame, parentPanel, selectedDay, database, new Calendar(year, month - 1, selectedDay, frame, parentPanel, database));
-                } else {
-                    resetMainPanel(frame, parentPanel, selectedDay, database, new Calendar(year - 1, 12, selectedDay, frame, parentPanel, database));
-                }
+                model.setMonth(model.getMonth().minusMonths(1));
             }
 
             @Override
@@ -83,18 +111,12 @@ public class Calendar extends JPanel {
         top.add(left, BorderLayout.WEST);
 
         // Add '>' arrow label which acts like a button to go to the next month
-        JLabel right = new JLabel(new ImageIcon("resources/arrow-right.png"));
-        right.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        JLabel right = new JLabel(UIResources.icon("arrow-right.png"));
+        right.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
         right.addMouseListener(new MouseListener() {
             @Override
             public void mouseClicked(MouseEvent e) {
-                // Checks for right '>' clicked. this decides if it is moving right by one month/one year
-                // if it is december, we have to perform year + 1, else month + 1
-                if (month != 12) {
-                    resetMainPanel(frame, parentPanel, selectedDay, database, new Calendar(year, month + 1, selectedDay, frame, parentPanel, database));
-                } else {
-                    resetMainPanel(frame, parentPanel, selectedDay, database, new Calendar(year + 1, 1, selectedDay, frame, parentPanel, database));
-                }
+                model.setMonth(model.getMonth().plusMonths(1));
             }
 
             @Override
@@ -121,7 +143,7 @@ public class Calendar extends JPanel {
         days.setBackground(null);
 
         // Add days header
-        Color header = Color.decode("#aa6231");
+        Color header = UIResources.color("#aa6231");
         days.add(new DayLabel("S", header, Color.white, false));
         days.add(new DayLabel("M", header, Color.white, false));
         days.add(new DayLabel("T", header, Color.white, false));
@@ -130,54 +152,28 @@ public class Calendar extends JPanel {
         days.add(new DayLabel("F", header, Color.white, false));
         days.add(new DayLabel("S", header, Color.white, false));
 
-        String[] weekDays = new String[]{"SUNDAY", "MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY", "SATURDAY"};
-
-        // Get the first day(Mon - Sun) of the month.
-        LocalDate firstDay = LocalDate.of(year, month, 1);
-        int j = 0;
-
-        // Fill up the empty days before 1st day of the month
-        while (!firstDay.getDayOfWeek().toString().equals(weekDays[j])) {
-            days.add(new DayLabel("", Color.decode("#e3deca"), Color.BLACK, false));
-            j++;
-        }
-
-        // Get the length of the month(How many days in a specific month)
-        int daysNum = YearMonth.of(year, month).lengthOfMonth();
-        // Do a loop to populate the days in the calendar
-        for (int i = 1; i <= daysNum; i++) {
-            final int day = i;
-            DayLabel dayLabel;
-
-            if (selectedDay.getYear() == year && selectedDay.getMonthValue() == month && selectedDay.getDayOfMonth() == i) {
-                // Set the label of ONE user selected day
-                dayLabel = new DayLabel(i + "", Color.decode("#bfbeba"), Color.BLACK, true);
-            } else if (database.hasTasks(dateFormatter.format(LocalDate.of(year, month, i)))) {
-                // Set the label of the days which have tasks added
-                dayLabel = new DayLabel(i + "", Color.decode("#dda35d"), Color.WHITE, true);
-            } else {
-                // Set the label for the rest of the days
-                dayLabel = new DayLabel(i + "", Color.decode("#e3deca"), Color.BLACK, true);
-            }
-
-            // Set the label for today
-            LocalDate today = LocalDate.now();
-            if (today.getYear() == year && today.getMonthValue() == month && today.getDayOfMonth() == i) {
-                dayLabel = new DayLabel(i + "", Color.decode("#3c3a1e"), Color.WHITE, true);
-            }
+        // Add the day cells
+        for (int i = 0; i < CELLS; i++) {
+            final int cell = i;
+            DayLabel dayLabel = new DayLabel("", UIResources.color("#e3deca"), Color.BLACK, false);
+            cells[i] = dayLabel;
 
             // Add mouse listener to the day labels.
             dayLabel.addMouseListener(new MouseListener() {
                 @Override
                 public void mouseClicked(MouseEvent e) {
-                    // Single click - refresh the calendar to show selected day and show the tasks for the selected day.
-                    LocalDate selected = LocalDate.of(year, month, day);
-                    resetMainPanel(frame, parentPanel, selected, database, new Calendar(year, month, selected, frame, parentPanel, database));
+                    int day = cell - firstCell + 1;
+                    if (day < 1 || day > month.lengthOfMonth()) {
+                        return;
+                    }
+                    LocalDate date = month.atDay(day);
+                    // Single click - show selected day and show the tasks for the selected day.
+                    model.setSelectedDay(date);
 
                     if (e.getClickCount() == 2) {
                         // Double click - Open the daySchedule page for the selected day.
                         parentPanel.setVisible(false);
-                        DaySchedule daySchedulePanel = new DaySchedule(frame, selected, database);
+                        DaySchedule daySchedulePanel = new DaySchedule(frame, date, database);
                         daySchedulePanel.setVisible(true);
                         frame.add(daySchedulePanel);
                     }
@@ -201,52 +197,151 @@ public class Calendar extends JPanel {
             });
             days.add(dayLabel);
         }
+        add(days, BorderLayout.CENTER);
+
+        showMonth(model.getMonth());
+        model.addListener(this);
+    }
 
-        // Fill up the remaining empty days after the last day of the month
-        for (int i = 0; i < (42 - (j + daysNum)); i++) {
-            days.add(new DayLabel("", Color.decode("#e3deca"), Color.BLACK, false));
+    /**
+     * showMonth - Bind the day cells to the days of a month.
+     * The days which have tasks are shown from the cache, or loaded, and the months before and after are prefetched.
+     *
+     * @param shownMonth The month to show
+     */
+    private void showMonth(YearMonth shownMonth) {
+        long start = System.nanoTime();
+        month = shownMonth;
+        date.setText(month.format(monthFormatter));
+
+        // Cells before the 1st day of the month are left empty, the grid starts on Sunday
+        firstCell = month.atDay(1).getDayOfWeek().getValue() % 7;
+        int daysNum = month.lengthOfMonth();
+        for (int i = 0; i < CELLS; i++) {
+            int day = i - firstCell + 1;
+            DayLabel dayLabel = cells[i];
+            if (day >= 1 && day <= daysNum) {
+                dayLabel.setText(Integer.toString(day));
+                dayLabel.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+                paintDay(day);
+            } else {
+                dayLabel.setText("");
+                dayLabel.setCursor(Cursor.getDefaultCursor());
+                dayLabel.setBackground(UIResources.color("#e3deca"));
+                dayLabel.setForeground(Color.BLACK);
+            }
         }
 
-        add(days, BorderLayout.CENTER);
+        if (!busyMonths.containsKey(month)) {
+            loadBusyDays(month);
+        }
+        // Prefetch the months the arrows go to next
+        if (!busyMonths.containsKey(month.minusMonths(1))) {
+            loadBusyDays(month.minusMonths(1));
+        }
+        if (!busyMonths.containsKey(month.plusMonths(1))) {
+            loadBusyDays(month.plusMonths(1));
+        }
+        Metrics.record("UI.Calendar.showMonth", start);
     }
 
     /**
-     * resetMainPanel - Reset the parent panel to reflect the task changes made.
+     * loadBusyDays - Get the days which have tasks for a whole month off the event dispatch thread,
+     * then set the label of the days which have tasks added if the month is shown.
      *
-     * @param parentFrame The main frame object
-     * @param mainPanel   The parent panel object
-     * @param selectedDay The selected day in the calendar
-     * @param database    The database object
-     * @param c           The calendar object
+     * @param loading The month to load
      */
-    private static void resetMainPanel(JFrame parentFrame, JPanel mainPanel, LocalDate selectedDay, Database database, Calendar c) {
-        mainPanel.removeAll();
-        LocalDate date = LocalDate.now();
-        String dateString = date.format(DateTimeFormatter.ofPattern("dd MMMM yyyy, EEEE"));
-        JLabel todayLabel = new JLabel(dateString);
-        todayLabel.setFont(new Font("Helvetica", Font.BOLD, 40));
-        todayLabel.setForeground(Color.decode("#4D2508"));
-        GridBagConstraints constraints = new GridBagConstraints();
-        constraints.fill = GridBagConstraints.BOTH;
-        constraints.anchor = GridBagConstraints.EAST;
-        constraints.weighty = 0;
-        constraints.gridx = 0;
-        constraints.gridy = 0;
-        constraints.gridwidth = 2;
-        constraints.insets = new Insets(5, 15, 5, 15);
-        mainPanel.add(todayLabel, constraints);
-
-        constraints.weightx = 1;
-        constraints.weighty = 1;
-        constraints.gridwidth = 1;
-        constraints.gridx = 0;
-        constraints.gridy = 1;
-        constraints.insets = new Insets(0, 0, 0, 0);
-        mainPanel.add(c, constraints);
-
-        constraints.gridx = 1;
-        constraints.gridy = 1;
-        mainPanel.add(new Tasks(selectedDay, database, parentFrame, mainPanel), constraints);
-        mainPanel.revalidate();
+    private void loadBusyDays(YearMonth loading) {
+        if (!loadingMonths.add(loading)) {
+            return;
+        }
+        int generation = busyGeneration;
+        database.async().getBusyDays(loading).whenCompleteAsync((busy, error) -> {
+            if (generation != busyGeneration) {
+                return;
+            }
+            loadingMonths.remove(loading);
+            if (error != null) {
+                // The month is loaded again the next time it is shown
+                error.printStackTrace();
+                return;
+            }
+            busyMonths.put(loading, busy);
+            if (loading.equals(month)) {
+                for (int i = busy.nextSetBit(1); i >= 0 && i <= month.lengthOfMonth(); i = busy.nextSetBit(i + 1)) {
+                    paintDay(i);
+                }
+            }
+        }, AsyncDatabase.EDT);
+    }
+
+    /**
+     * paintDay - Set the colors of a day label from the state of the day.
+     *
+     * @param day The day of the shown month
+     */
+    private void paintDay(int day) {
+        LocalDate date = month.atDay(day);
+        DayLabel dayLabel = cells[firstCell + day - 1];
+        BitSet busyDays = busyMonths.get(month);
+        if (date.equals(LocalDate.now())) {
+            // Set the label for today
+            dayLabel.setBackground(UIResources.color("#3c3a1e"));
+            dayLabel.setForeground(Color.WHITE);
+        } else if (date.equals(model.getSelectedDay())) {
+            // Set the label of ONE user selected day
+            dayLabel.setBackground(UIResources.color("#bfbeba"));
+            dayLabel.setForeground(Color.BLACK);
+        } else if (busyDays != null && busyDays.get(day)) {
+            // Set the label of the days which have tasks added
+            dayLabel.setBackground(UIResources.color("#dda35d"));
+            dayLabel.setForeground(Color.WHITE);
+        } else {
+            // Set the label for the rest of the days
+            dayLabel.setBackground(UIResources.color("#e3deca"));
+            dayLabel.setForeground(Color.BLACK);
+        }
+    }
+
+    @Override
+    public void selectedDayChanged(LocalDate oldDay, LocalDate newDay) {
+        // Only the previously and newly selected days need to be repainted
+        if (YearMonth.from(oldDay).equals(month)) {
+            paintDay(oldDay.getDayOfMonth());
+        }
+        if (YearMonth.from(newDay).equals(month)) {
+            paintDay(newDay.getDayOfMonth());
+        }
+    }
+
+    @Override
+    public void monthChanged(YearMonth newMonth) {
+        showMonth(newMonth);
+    }
+
+    @Override
+    public void allTasksChanged() {
+        // Drop every cached month, and the months being loaded, then load the shown month again
+        busyGeneration++;
+        busyMonths.clear();
+        loadingMonths.clear();
+        showMonth(month);
+    }
+
+    @Override
+    public void tasksChanged(LocalDate changed) {
+        // Check again whether the changed day has tasks, update the cached month and repaint only that day
+        YearMonth changedMonth = YearMonth.from(changed);
+        if (busyMonths.containsKey(changedMonth)) {
+            database.async().read(() -> database.hasTasks(changed)).thenAcceptAsync(hasTasks -> {
+                BitSet busyDays = busyMonths.get(changedMonth);
+                if (busyDays != null) {
+                    busyDays.set(changed.getDayOfMonth(), hasTasks);
+                }
+                if (changedMonth.equals(month)) {
+                    paintDay(changed.getDayOfMonth());
+                }
+            }, AsyncDatabase.EDT);
+        }
     }
 }
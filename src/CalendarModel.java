@@ -0,0 +1,130 @@
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Audreen Soh
+ * <p>
+ * This class holds the state shared by the calendar and the task views of a page:
+ * the selected day and the month shown in the calendar.
+ * Views listen to the model and update only what a change affects, instead of the page being rebuilt.
+ * The model is used on the event dispatch thread only.
+ */
+public class CalendarModel {
+
+    /**
+     * Listener of the calendar model changes.
+     */
+    public interface Listener {
+        /**
+         * selectedDayChanged - The selected day changed
+         *
+         * @param oldDay The previously selected day
+         * @param newDay The newly selected day
+         */
+        default void selectedDayChanged(LocalDate oldDay, LocalDate newDay) {
+        }
+
+        /**
+         * monthChanged - The month shown in the calendar changed
+         *
+         * @param month The new month
+         */
+        default void monthChanged(YearMonth month) {
+        }
+
+        /**
+         * tasksChanged - Tasks of a day were created, updated or deleted
+         *
+         * @param date The day whose tasks changed
+         */
+        default void tasksChanged(LocalDate date) {
+        }
+
+        /**
+         * allTasksChanged - Tasks of many days changed, such as a repeating task
+         */
+        default void allTasksChanged() {
+        }
+    }
+
+    private final List<Listener> listeners = new ArrayList<>();
+    private LocalDate selectedDay;
+    private YearMonth month;
+
+    /**
+     * Class constructor.
+     *
+     * @param selectedDay The selected day, the calendar shows the month of this day
+     */
+    public CalendarModel(LocalDate selectedDay) {
+        this.selectedDay = selectedDay;
+        this.month = YearMonth.from(selectedDay);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public LocalDate getSelectedDay() {
+        return selectedDay;
+    }
+
+    /**
+     * setSelectedDay - Select a day, and notify the listeners if it is a different day
+     *
+     * @param day The day to select
+     */
+    public void setSelectedDay(LocalDate day) {
+        LocalDate oldDay = selectedDay;
+        if (!day.equals(oldDay)) {
+            selectedDay = day;
+            for (Listener listener : new ArrayList<>(listeners)) {
+                listener.selectedDayChanged(oldDay, day);
+            }
+        }
+    }
+
+    public YearMonth getMonth() {
+        return month;
+    }
+
+    /**
+     * setMonth - Show a month in the calendar, and notify the listeners if it is a different month
+     *
+     * @param month The month to show
+     */
+    public void setMonth(YearMonth month) {
+        if (!month.equals(this.month)) {
+            this.month = month;
+            for (Listener listener : new ArrayList<>(listeners)) {
+                listener.monthChanged(month);
+            }
+        }
+    }
+
+    /**
+     * fireTasksChanged - Notify the listeners that the tasks of a day were changed
+     *
+     * @param date The day whose tasks changed
+     */
+    public void fireTasksChanged(LocalDate date) {
+        for (Listener listener : new ArrayList<>(listeners)) {
+            listener.tasksChanged(date);
+        }
+    }
+
+    /**
+     * fireAllTasksChanged - Notify the listeners that the tasks of many days were changed
+     */
+    public void fireAllTasksChanged() {
+        for (Listener listener : new ArrayList<>(listeners)) {
+            listener.allTasksChanged();
+        }
+    }
+}
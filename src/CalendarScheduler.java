@@ -18,11 +18,14 @@ import java.time.LocalDate;
  */
 public class CalendarScheduler {
     public static void main(String[] args) {
+        // Report the events which block the event dispatch thread, if turned on with -Dcalendar.watchdog
+        EdtWatchdog.install();
+
         // Set up frame
         JFrame frame = new JFrame("Calendar Scheduler");
 
         //Change frame icon
-        ImageIcon img = new ImageIcon("resources/calendar-icon.png");
+        ImageIcon img = UIResources.icon("calendar-icon.png");
         frame.setIconImage(img.getImage());
         frame.setSize(1000, 600);
         frame.setLocationRelativeTo(null);
@@ -41,6 +44,8 @@ public class CalendarScheduler {
 
             @Override
             public void windowClosing(WindowEvent e) {
+                // Close the page first, so the notes being typed are saved
+                frame.getContentPane().removeAll();
                 // Close database connection and persist data
                 database.closeConnection();
                 // exit application.
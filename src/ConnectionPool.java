@@ -0,0 +1,150 @@
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Audreen Soh
+ * <p>
+ * This class implements a small bounded pool of connections to the database.
+ * The reads of the database take a connection from the pool for each call, so calls from different threads
+ * run on different connections at the same time. Connections are opened when they are first needed, up to the maximum,
+ * after that a caller waits for a connection to be given back.
+ */
+public class ConnectionPool {
+
+    /**
+     * A connection of the pool with its own cache of prepared statements.
+     * A pooled connection is used by one thread at a time, between acquire and release.
+     */
+    public static class PooledConnection {
+        private final Connection connection;
+        // Prepared statements of the connection, keyed by their SQL
+        private final Map<String, PreparedStatement> preparedStatements = new HashMap<>();
+
+        private PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        /**
+         * prepare - Get the prepared statement for a query, preparing it on first use on this connection.
+         *
+         * @param sql The query with ? placeholders for the parameters
+         * @return The cached prepared statement
+         * @throws SQLException If the query cannot be prepared
+         */
+        public PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement ps = preparedStatements.get(sql);
+            if (ps == null) {
+                ps = connection.prepareStatement(sql);
+                preparedStatements.put(sql, ps);
+            }
+            return ps;
+        }
+
+        private void close() throws SQLException {
+            // Closing the connection also closes the cached prepared statements
+            connection.close();
+            preparedStatements.clear();
+        }
+    }
+
+    private final String url;
+    private final String user;
+    private final String pass;
+    private final int maxConnections;
+    private final BlockingQueue<PooledConnection> idle = new LinkedBlockingQueue<>();
+    // Every connection opened by the pool, idle or in use
+    private final List<PooledConnection> opened = new ArrayList<>();
+    // Read without the lock by the callers waiting for a connection
+    private volatile boolean closed = false;
+    // Milliseconds a waiting caller sleeps before it checks again if the pool was closed
+    private static final long closedCheckInterval = 100;
+
+    /**
+     * Class constructor.
+     *
+     * @param url            The database URL
+     * @param user           The database user
+     * @param pass           The database password
+     * @param maxConnections The maximum number of connections to open
+     */
+    public ConnectionPool(String url, String user, String pass, int maxConnections) {
+        this.url = url;
+        this.user = user;
+        this.pass = pass;
+        this.maxConnections = maxConnections;
+    }
+
+    /**
+     * acquire - Take a connection from the pool, opening a new one if none is idle and the pool is not full,
+     * or else waiting for one to be released. A caller waiting when the pool is closed gets an SQLException.
+     *
+     * @return The connection, which has to be given back with release
+     * @throws SQLException If a connection cannot be opened, or the pool is closed
+     */
+    public PooledConnection acquire() throws SQLException {
+        PooledConnection c = idle.poll();
+        if (c != null) {
+            return c;
+        }
+        synchronized (this) {
+            if (closed) {
+                throw new SQLException("The connection pool is closed");
+            }
+            if (opened.size() < maxConnections) {
+                c = new PooledConnection(DriverManager.getConnection(url, user, pass));
+                opened.add(c);
+                return c;
+            }
+        }
+        try {
+            // close does not hand out connections, so check now and then if it ran
+            while (c == null) {
+                if (closed) {
+                    throw new SQLException("The connection pool is closed");
+                }
+                c = idle.poll(closedCheckInterval, TimeUnit.MILLISECONDS);
+            }
+            return c;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+    }
+
+    /**
+     * release - Give a connection back to the pool
+     *
+     * @param c The connection taken with acquire, or null if acquire failed
+     */
+    public void release(PooledConnection c) {
+        if (c != null && !closed) {
+            idle.offer(c);
+        }
+    }
+
+    /**
+     * close - Close every connection of the pool.
+     * The calls using the database have to be finished first.
+     */
+    public synchronized void close() {
+        closed = true;
+        for (PooledConnection c : opened) {
+            try {
+                c.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+        opened.clear();
+        idle.clear();
+    }
+}
@@ -1,42 +1,214 @@
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * @author Audreen Soh
  * <p>
  * This database class connects to a H2 database and executes the database queries.
+ * By default the database is kept in memory, changes are appended to a journal as they are made,
+ * and the journal is compacted into the snapshot file in the background once it grows.
+ * Alternatively the database can be stored in a H2 file, see the class constructor.
+ * The database can be used from many threads. Reads run at the same time on the connections of a pool,
+ * writes are made one at a time on the main connection, in the order they are journaled.
  */
 public class Database {
     private String url = "jdbc:h2:mem:test";
+    private String fileUrl = "jdbc:h2:file:";
+    // H2 reuses the last result of a statement run again with the same parameters if the table has not changed since,
+    // but a read which runs while a write is being committed can keep the old rows, which were then read after the write
+    private String settings = ";OPTIMIZE_REUSE_RESULTS=FALSE";
     private String user = "sa";
     private String pass = "";
     private Statement statement;
+    // Prepared statements of the connection, keyed by their SQL
+    private final Map<String, PreparedStatement> preparedStatements = new HashMap<>();
+    // Connections used by the reads, so reads from different threads run at the same time
+    private ConnectionPool pool;
+    // Tasks of the recently viewed days
+    private final TaskCache taskCache = new TaskCache(62);
+    // Words of the tasks and notes, built on the first search
+    private final SearchIndex searchIndex = new SearchIndex();
+    // Days of the repeating tasks, worked out for the months which are read
+    private final RecurringTasks recurringTasks = new RecurringTasks(this::getRecurringTasks);
+    // Runs the database calls of the UI off the event dispatch thread
+    private final AsyncDatabase async = new AsyncDatabase(this);
 
     Connection connection;
+    // URL of the open database, used to open the connections of the task cursors
+    private String connectionUrl;
 
-    String snapShotFile = "CalendarSchedulerDBSnapshot";
+    String snapShotFile;
+    String dataFile;
+
+    // System property which selects the storage mode
+    private static final String storageProperty = "calendar.storage";
+
+    // Journal of the changes made since the snapshot was written
+    private Journal journal;
+    // Number of journal records which triggers a compaction into the snapshot, set with the calendar.compactThreshold system property
+    private static final int compactThreshold = Integer.getInteger("calendar.compactThreshold", 500);
+    // Number of rows sent to the database at a time by bulk inserts
+    private static final int batchSize = 1000;
+    // Number of tasks committed at a time by an import
+    private static final int importChunkSize = 5000;
+    // Number of chunks an import writes between snapshots, a snapshot of 200k tasks takes about half a second
+    private static final int importSnapshotChunks = 10;
+    // Number of rows fetched at a time by the task cursors
+    private static final int fetchSize = 1000;
+    private boolean compactionScheduled = false;
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "snapshot-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Index used by the day and month lookups on the task table
+    private static final String createTaskIndex = "CREATE INDEX IF NOT EXISTS `task_date_time` ON `task`(`date`, `time`)";
+    // Imported tasks are matched by their UID, so importing a file again does not add its tasks twice
+    private static final String createTaskUidIndex = "CREATE UNIQUE INDEX IF NOT EXISTS `task_uid` ON `task`(`uid`)";
+    // A day has at most one notes row
+    private static final String createNotesIndex = "CREATE UNIQUE INDEX IF NOT EXISTS `notes_date` ON `notes`(`date`)";
 
     /**
-     * Class constructor which sets up the H2 database connection.
+     * Class constructor which sets up the H2 database connection, with the database files in the working directory.
+     * The storage mode is selected with the calendar.storage system property,
+     * "file" opens the file-backed database and anything else uses the in-memory database with the snapshot file.
      */
     public Database() {
+        this(new File("."));
+    }
+
+    /**
+     * Class constructor which sets up the H2 database connection, with the database files in a directory.
+     *
+     * @param directory The directory of the snapshot, journal and database files
+     */
+    public Database(File directory) {
+        snapShotFile = new File(directory, "CalendarSchedulerDBSnapshot").getPath();
+        dataFile = new File(directory, "CalendarSchedulerDB").getPath();
+        long start = System.nanoTime();
         try {
-            connection = DriverManager.getConnection(url, user, pass);
-            statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
             // Checks if there is an existing snapshot file to load database data from.
             File f = new File(snapShotFile + ".sql");
+            if ("file".equals(System.getProperty(storageProperty))) {
+                openFileDatabase(f);
+            } else {
+                openMemoryDatabase(f);
+            }
+        } catch (SQLException | IOException e) {
+            e.printStackTrace();
+            Metrics.error("Database.loadSnapshot");
+        }
+        // Created after an error too, so the reads print their SQL errors instead of failing on a missing pool
+        pool = new ConnectionPool(connectionUrl != null ? connectionUrl : url + settings, user, pass, Runtime.getRuntime().availableProcessors());
+        // Loading the snapshot and replaying the journal, or opening the database file
+        Metrics.record("Database.loadSnapshot", start);
+        Metrics.register(this);
+    }
+
+    /**
+     * openMemoryDatabase - Loads the snapshot file into the in-memory database and replays the journal on top of it.
+     *
+     * @param f The snapshot file
+     * @throws SQLException If the database cannot be set up
+     * @throws IOException  If the journal cannot be read
+     */
+    private void openMemoryDatabase(File f) throws SQLException, IOException {
+        connectionUrl = url + settings;
+        connection = DriverManager.getConnection(connectionUrl, user, pass);
+        statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        if (f.isFile()) {
+            // Set up database with snapshot file.
+            statement.execute("RUNSCRIPT FROM '" + f.getPath() + "'");
+        } else {
+            // First time running the application
+            // Create database and create the tables
+            createDatabase();
+        }
+        // The journaled task changes name the newer task columns, add them to an older snapshot first
+        boolean columnsAdded = addTaskColumns();
+        // Apply the changes made after the snapshot was written
+        journal = new Journal(new File(snapShotFile + ".journal"));
+        if (journal.replay(connection) > 0) {
+            // Replayed inserts carry their own IDs, move the ID sequences past them
+            restartIdentity("task");
+            restartIdentity("notes");
+        }
+        // Older snapshot files store the dates and times as strings, older journals too,
+        // so the columns are converted once the journal has been replayed
+        migrateDatabase();
+        if (columnsAdded || journal.size() > 0 || !f.isFile()) {
+            scheduleCompaction();
+        }
+    }
+
+    /**
+     * openFileDatabase - Opens the file-backed database, which is read directly without replaying any SQL.
+     * The first time, the snapshot file and journal of the in-memory mode are imported into it.
+     *
+     * @param f The snapshot file
+     * @throws SQLException If the database cannot be set up
+     * @throws IOException  If the snapshot cannot be imported
+     */
+    private void openFileDatabase(File f) throws SQLException, IOException {
+        File databaseFile = new File(dataFile + ".mv.db");
+        if (!databaseFile.isFile()) {
+            // Build the database under a temporary name, so an interrupted import is not mistaken for a complete one
+            File importFile = new File(dataFile + "-import.mv.db");
+            Files.deleteIfExists(importFile.toPath());
+            connection = DriverManager.getConnection(fileUrl + dataFile + "-import", user, pass);
+            statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
             if (f.isFile()) {
-                // Set up database with snapshot file.
-                DriverManager.getConnection(url + ";INIT=RUNSCRIPT FROM '" + snapShotFile + ".sql'", user, pass);
+                statement.execute("RUNSCRIPT FROM '" + f.getPath() + "'");
+                addTaskColumns();
+                Journal snapshotJournal = new Journal(new File(snapShotFile + ".journal"));
+                if (snapshotJournal.replay(connection) > 0) {
+                    restartIdentity("task");
+                    restartIdentity("notes");
+                }
+                snapshotJournal.close();
+                migrateDatabase();
             } else {
-                // First time running the application
-                // Create database and create the tables
                 createDatabase();
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
+            connection.close();
+            // The cached statements belong to the import connection
+            preparedStatements.clear();
+            Files.move(importFile.toPath(), databaseFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
         }
+        connectionUrl = fileUrl + dataFile + settings;
+        connection = DriverManager.getConnection(connectionUrl, user, pass);
+        statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        // The database file is durable by itself, changes are not journaled
+        migrateDatabase();
     }
 
     /**
@@ -44,9 +216,11 @@ public class Database {
      */
     public void createDatabase() {
         // Create Tasks table
-        String createTaskTable = "CREATE TABLE `task` (`ID` bigint NOT NULL AUTO_INCREMENT, `title` VARCHAR NOT NULL, `description` VARCHAR, `category` VARCHAR, `isDone` BOOLEAN  NOT NULL, `date` VARCHAR NOT NULL,`time` VARCHAR NOT NULL,PRIMARY KEY (`ID`))";
+        String createTaskTable = "CREATE TABLE `task` (`ID` bigint NOT NULL AUTO_INCREMENT, `title` VARCHAR NOT NULL, `description` VARCHAR, `category` VARCHAR, `isDone` BOOLEAN  NOT NULL, `date` DATE NOT NULL,`time` TIME NOT NULL, `recurrence` VARCHAR, `duration` INT, `uid` VARCHAR,PRIMARY KEY (`ID`))";
         try {
             statement.execute(createTaskTable);
+            statement.execute(createTaskIndex);
+            statement.execute(createTaskUidIndex);
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -61,104 +235,840 @@ public class Database {
         }
 
         // Create Notes table
-        String createNotesTable = "CREATE TABLE `notes` (`ID` bigint NOT NULL AUTO_INCREMENT, `date` VARCHAR NOT NULL, `note` VARCHAR NOT NULL,PRIMARY KEY (`ID`))";
+        String createNotesTable = "CREATE TABLE `notes` (`ID` bigint NOT NULL AUTO_INCREMENT, `date` DATE NOT NULL, `note` VARCHAR NOT NULL,PRIMARY KEY (`ID`))";
         try {
             statement.execute(createNotesTable);
+            statement.execute(createNotesIndex);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * migrateDatabase - Converts the task date and time columns and the notes date column of an older snapshot
+     * from strings to DATE and TIME, and adds the date and time index if it is missing.
+     * The missing task columns are added as well, see addTaskColumns.
+     * Older versions could save several notes rows for a day, only the latest row of each day is kept
+     * and the unique index on the notes date is added.
+     * A converted snapshot is written again, so the journal is never replayed over the old column types.
+     */
+    public void migrateDatabase() {
+        boolean migrated = false;
+        String selectType = "SELECT `DATA_TYPE` FROM INFORMATION_SCHEMA.COLUMNS WHERE `TABLE_NAME` = ? AND `COLUMN_NAME` = 'DATE'";
+        try {
+            PreparedStatement ps = prepare(selectType);
+            ps.setString(1, "TASK");
+            ResultSet rs = ps.executeQuery();
+            if (rs.next() && rs.getString("DATA_TYPE").equals("CHARACTER VARYING")) {
+                // Rewrite dd-MM-yyyy as yyyy-MM-dd so the column can be converted to DATE, HH:mm converts to TIME as it is.
+                // Tasks journaled as DATE parameters before the conversion are already stored as yyyy-MM-dd
+                statement.execute("UPDATE `task` SET date = FORMATDATETIME(PARSEDATETIME(date, 'dd-MM-yyyy'), 'yyyy-MM-dd') WHERE date LIKE '__-__-____'");
+                statement.execute("ALTER TABLE `task` ALTER COLUMN `date` SET DATA TYPE DATE");
+                statement.execute("ALTER TABLE `task` ALTER COLUMN `time` SET DATA TYPE TIME");
+                migrated = true;
+            }
+            statement.execute(createTaskIndex);
+            if (addTaskColumns()) {
+                migrated = true;
+            }
+
+            ps.setString(1, "NOTES");
+            rs = ps.executeQuery();
+            if (rs.next() && rs.getString("DATA_TYPE").equals("CHARACTER VARYING")) {
+                // Notes journaled as DATE parameters before the conversion are already stored as yyyy-MM-dd
+                statement.execute("UPDATE `notes` SET date = FORMATDATETIME(PARSEDATETIME(date, 'dd-MM-yyyy'), 'yyyy-MM-dd') WHERE date LIKE '__-__-____'");
+                statement.execute("ALTER TABLE `notes` ALTER COLUMN `date` SET DATA TYPE DATE");
+                migrated = true;
+            }
+
+            try (ResultSet index = statement.executeQuery("SELECT 1 FROM INFORMATION_SCHEMA.INDEXES WHERE UPPER(`INDEX_NAME`) = 'NOTES_DATE'")) {
+                if (!index.next()) {
+                    statement.execute("DELETE FROM `notes` n WHERE EXISTS (SELECT 1 FROM `notes` m WHERE m.`date` = n.`date` AND m.`ID` > n.`ID`)");
+                    statement.execute(createNotesIndex);
+                    migrated = true;
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        if (migrated && journal != null) {
+            scheduleCompaction();
+        }
+    }
+
+    /**
+     * addTaskColumns - Adds the recurrence column of the repeating tasks, the duration column and the uid column
+     * of the imported tasks to the task table of an older snapshot if they are missing.
+     * This runs before the journal is replayed, as the journaled task changes name these columns.
+     *
+     * @return true if a column was added
+     */
+    private boolean addTaskColumns() {
+        boolean added = false;
+        try {
+            try (ResultSet column = statement.executeQuery("SELECT 1 FROM INFORMATION_SCHEMA.COLUMNS WHERE `TABLE_NAME` = 'TASK' AND `COLUMN_NAME` = 'RECURRENCE'")) {
+                if (!column.next()) {
+                    statement.execute("ALTER TABLE `task` ADD COLUMN `recurrence` VARCHAR");
+                    added = true;
+                }
+            }
+            try (ResultSet column = statement.executeQuery("SELECT 1 FROM INFORMATION_SCHEMA.COLUMNS WHERE `TABLE_NAME` = 'TASK' AND `COLUMN_NAME` = 'DURATION'")) {
+                if (!column.next()) {
+                    statement.execute("ALTER TABLE `task` ADD COLUMN `duration` INT");
+                    added = true;
+                }
+            }
+            try (ResultSet column = statement.executeQuery("SELECT 1 FROM INFORMATION_SCHEMA.COLUMNS WHERE `TABLE_NAME` = 'TASK' AND `COLUMN_NAME` = 'UID'")) {
+                if (!column.next()) {
+                    statement.execute("ALTER TABLE `task` ADD COLUMN `uid` VARCHAR");
+                    statement.execute(createTaskUidIndex);
+                    added = true;
+                }
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
+        return added;
     }
 
     /**
      * loadQuotes - Retrieve quotes.
+     * All the quotes are inserted in one batched transaction, the line number of a quote is its day of the year.
      */
     public void loadQuotes() {
         File file = new File("database/quotes.txt");
         // Read in quotes from file and add them to database
         if (file.isFile()) {
-            try {
-                BufferedReader br = new BufferedReader(new FileReader(file));
-                String quote = br.readLine();
-                quote = quote.replace("'", "''");
+            try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+                // The file stores apostrophes escaped for SQL literals, the values are bound as parameters instead
+                Iterator<Object[]> quotes = br.lines().map(quote -> new Object[]{quote.replace("''", "'")}).iterator();
+                bulkInsert("quotes", new String[]{"quote"}, quotes);
+            } catch (IOException | UncheckedIOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
 
-                while (quote != null) {
-                    String insert = "INSERT INTO `quotes`(`quote`) VALUES ('" + quote + "')";
-                    quote = br.readLine();
-                    try {
-                        statement.execute(insert);
-                    } catch (SQLException e) {
-                        e.printStackTrace();
+    /**
+     * bulkInsert - Insert many rows into a table using batched inserts in a single transaction.
+     * Either all the rows are inserted or, if any insert fails, none of them.
+     * The rows are not journaled, so the snapshot is written before returning.
+     *
+     * @param table   The table name
+     * @param columns The names of the columns to insert
+     * @param rows    The rows to insert, each row holds a value for every column
+     * @return The number of rows inserted
+     */
+    public synchronized int bulkInsert(String table, String[] columns, Iterator<Object[]> rows) {
+        StringBuilder insert = new StringBuilder("INSERT INTO `" + table + "`(");
+        StringBuilder values = new StringBuilder(") VALUES (");
+        for (int i = 0; i < columns.length; i++) {
+            insert.append(i == 0 ? "" : ", ").append('`').append(columns[i]).append('`');
+            values.append(i == 0 ? "?" : ", ?");
+        }
+        insert.append(values).append(')');
+
+        long start = System.nanoTime();
+        int count = 0;
+        try {
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(insert.toString())) {
+                while (rows.hasNext()) {
+                    Object[] row = rows.next();
+                    for (int i = 0; i < columns.length; i++) {
+                        ps.setObject(i + 1, row[i]);
+                    }
+                    ps.addBatch();
+                    // Send the rows in chunks to keep the batch size bounded
+                    if (++count % batchSize == 0) {
+                        ps.executeBatch();
                     }
                 }
-            } catch (FileNotFoundException e) {
-                e.printStackTrace();
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+                ps.executeBatch();
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                count = 0;
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
             }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            Metrics.error("Database.bulkInsert");
+        }
+        Metrics.record("Database.bulkInsert", start);
+        if (count > 0 && table.equalsIgnoreCase("task")) {
+            recurringTasks.invalidate();
+            taskCache.clear();
         }
+        if (count > 0) {
+            searchIndex.clear();
+        }
+        // Imported rows are not journaled, write them to the snapshot instead, on this thread as it holds the lock
+        if (count > 0 && journal != null) {
+            compact();
+        }
+        return count;
+    }
+
+    /**
+     * importTasks - Insert or update many imported tasks, matched by their UID.
+     * The tasks are written with batched statements and committed a chunk at a time, and the database is
+     * only locked while a chunk is written, so the changes made in the UI are not held up for the whole import.
+     * An imported task keeps its done state when it is imported again, and an import which was stopped
+     * can be run again without adding its tasks twice.
+     * Imported tasks are not journaled, so the import waits for the snapshot to be written every few chunks and when it ends.
+     * The progress is given the number of tasks in the snapshot, so the tasks it reported are kept if the application stops.
+     *
+     * @param tasks    The tasks to import, each with a UID, read as they are written
+     * @param progress Called after each chunk with the number of tasks imported and saved so far, returns false to stop the import
+     * @return The number of tasks imported
+     */
+    public int importTasks(Iterator<Task> tasks, IntPredicate progress) {
+        long start = System.nanoTime();
+        int count = 0;
+        // Tasks in the snapshot, or every task written in the file storage mode
+        int saved = 0;
+        int chunks = 0;
+        List<Task> chunk = new ArrayList<>(importChunkSize);
+        try {
+            while (tasks.hasNext()) {
+                chunk.clear();
+                while (tasks.hasNext() && chunk.size() < importChunkSize) {
+                    chunk.add(tasks.next());
+                }
+                int written = mergeTasks(chunk);
+                if (written < 0) {
+                    break;
+                }
+                count += written;
+                chunks++;
+                if (journal == null) {
+                    saved = count;
+                } else if (chunks % importSnapshotChunks == 0) {
+                    saveSnapshot();
+                    saved = count;
+                }
+                if (!progress.test(saved)) {
+                    break;
+                }
+            }
+        } finally {
+            // Save the chunks written since the last snapshot, also when the import is stopped or fails
+            if (count > saved) {
+                saveSnapshot();
+            }
+            Metrics.record("Database.importTasks", start);
+        }
+        return count;
+    }
+
+    /**
+     * mergeTasks - Insert or update a chunk of imported tasks in one transaction.
+     * The UIDs of the chunk which are already in the database are found with one query, then the new tasks are
+     * sent as a batch of inserts and the others as a batch of updates, which is faster than a MERGE for each task.
+     *
+     * @param tasks The tasks, each with a UID
+     * @return The number of tasks written, a UID which is in the chunk twice counted once, or -1 if it failed and was rolled back
+     */
+    private synchronized int mergeTasks(List<Task> tasks) {
+        String select = "SELECT `uid` FROM `task` WHERE `uid` = ANY(?)";
+        String insert = "INSERT INTO `task`(`title`, `description`, `category`, `date`, `time`, `recurrence`, `duration`, `uid`, `isDone`) VALUES (?, ?, ?, ?, ?, ?, ?, ?, FALSE)";
+        // An imported task keeps its done state
+        String update = "UPDATE `task` SET title = ?, description = ?, category = ?, date = ?, time = ?, recurrence = ?, duration = ? WHERE uid = ?";
+        // A UID which is in the chunk twice is written once, with its last event
+        Map<String, Task> byUid = new LinkedHashMap<>();
+        for (Task t : tasks) {
+            byUid.put(t.getUid(), t);
+        }
+        int written = -1;
+        try {
+            PreparedStatement inserts = prepare(insert);
+            PreparedStatement updates = prepare(update);
+            connection.setAutoCommit(false);
+            try {
+                Set<String> existing = new HashSet<>();
+                PreparedStatement ps = prepare(select);
+                ps.setObject(1, byUid.keySet().toArray(new String[0]));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        existing.add(rs.getString("uid"));
+                    }
+                }
+                for (Task t : byUid.values()) {
+                    PreparedStatement batch = existing.contains(t.getUid()) ? updates : inserts;
+                    batch.setString(1, t.getTitle());
+                    batch.setString(2, t.getDescription());
+                    batch.setString(3, t.getCategory());
+                    batch.setObject(4, t.getStoredDate());
+                    batch.setObject(5, t.getDateTime().toLocalTime().truncatedTo(ChronoUnit.MINUTES));
+                    batch.setString(6, t.getRecurrence() == null ? null : t.getRecurrence().toString());
+                    batch.setObject(7, duration(t));
+                    batch.setString(8, t.getUid());
+                    batch.addBatch();
+                }
+                inserts.executeBatch();
+                updates.executeBatch();
+                connection.commit();
+                written = byUid.size();
+            } catch (SQLException | RuntimeException e) {
+                // The statements are cached, drop the rows of this chunk so the next chunk does not send them again
+                inserts.clearBatch();
+                updates.clearBatch();
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            Metrics.error("Database.importTasks");
+        }
+        if (written >= 0) {
+            // Any day, and any repeating task, may have changed
+            recurringTasks.invalidate();
+            taskCache.clear();
+            searchIndex.clear();
+        }
+        return written;
     }
 
     /**
      * getTasks - Get tasks for a specific date
      *
-     * @param date The date string
+     * @param date The date
      *             <p>
      *             return an arrayList of tasks
      */
-    public ArrayList<Task> getTasks(String date) {
-        ArrayList<Task> tasks = new ArrayList<>();
-        String select = "SELECT * FROM `task` WHERE date = '" + date + "'";
+    public ArrayList<Task> getTasks(LocalDate date) {
+        long start = System.nanoTime();
+        ArrayList<Task> tasks = taskCache.get(date);
+        if (tasks != null) {
+            Metrics.record("Database.getTasks.cached", start);
+            return tasks;
+        }
+        tasks = new ArrayList<>();
+        long generation = taskCache.getGeneration();
+        String select = "SELECT * FROM `task` WHERE date = ? AND `recurrence` IS NULL";
+        // Worked out before taking a connection, the repeating tasks may have to be read with one first
+        List<Task> repeating = recurringTasks.getTasks(date);
+        ConnectionPool.PooledConnection c = null;
         try {
-            ResultSet rs = statement.executeQuery(select);
-            while (rs.next()) {
-                Task t = new Task();
-                t.setID(rs.getInt("ID"));
-                t.setTitle(rs.getString("Title"));
-                t.setDescription(rs.getString("Description"));
-                t.setCategory(rs.getString("Category"));
-                t.setDone(rs.getBoolean("isDone"));
-                t.setDateTimeFromString(rs.getString("Date") + " | " + rs.getString("Time"));
+            c = pool.acquire();
+            PreparedStatement ps = c.prepare(select);
+            ps.setObject(1, date);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    tasks.add(readTask(rs));
+                }
+            }
+            if (!repeating.isEmpty()) {
+                tasks.addAll(repeating);
+                tasks.sort(Comparator.comparing(Task::getDateTime));
+            }
+            taskCache.put(date, tasks, generation);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            Metrics.error("Database.getTasks");
+        } finally {
+            pool.release(c);
+            Metrics.record("Database.getTasks", start);
+        }
+        return tasks;
+    }
+
+    /**
+     * getTasks - Get the tasks of every day in a date range, one day at a time
+     *
+     * @param from The first date of the range
+     * @param to   The last date of the range, inclusive
+     * @param day  Called for each day which has tasks, in date order, with the tasks of that day in time order
+     *             <p>
+     *             return the number of tasks found
+     */
+    public int getTasks(LocalDate from, LocalDate to, BiConsumer<LocalDate, List<Task>> day) {
+        return getTasks(from, to, null, null, day);
+    }
+
+    /**
+     * getTasks - Get the tasks of every day in a date range, one day at a time.
+     * The range is read in date and time order from the date and time index, and only the tasks of
+     * the current day are held in memory, so the range can cover years of tasks.
+     *
+     * @param from     The first date of the range
+     * @param to       The last date of the range, inclusive
+     * @param category Only get the tasks of this category, or null for every category
+     * @param done     Only get the tasks in this done state, or null for both
+     * @param day      Called for each day which has tasks, in date order, with the tasks of that day in time order
+     *                 <p>
+     *                 return the number of tasks found
+     */
+    public int getTasks(LocalDate from, LocalDate to, String category, Boolean done, BiConsumer<LocalDate, List<Task>> day) {
+        long start = System.nanoTime();
+        int count = 0;
+        try (Stream<Task> stream = streamTasks(from, to, category, done)) {
+            Iterator<Task> rows = stream.iterator();
+            LocalDate date = null;
+            List<Task> tasks = new ArrayList<>();
+            while (rows.hasNext()) {
+                Task t = rows.next();
+                if (!t.getDate().equals(date)) {
+                    // The previous day is complete
+                    if (date != null) {
+                        day.accept(date, tasks);
+                        tasks = new ArrayList<>();
+                    }
+                    date = t.getDate();
+                }
                 tasks.add(t);
+                count++;
+            }
+            if (date != null) {
+                day.accept(date, tasks);
             }
+        }
+        Metrics.record("Database.getTaskRange", start);
+        return count;
+    }
+
+    /**
+     * streamTasks - Stream all the tasks, in date and time order.
+     * A repeating task is streamed once, on its first day.
+     *
+     * @return The tasks, the stream has to be closed once it is used
+     */
+    public Stream<Task> streamTasks() {
+        return openCursor("SELECT * FROM `task` ORDER BY `date`, `time`");
+    }
 
+    /**
+     * streamTasks - Stream the tasks of a date range, in date and time order.
+     * A repeating task is streamed once for each of its days in the range, merged with the rows of the other tasks.
+     *
+     * @param from     The first date of the range
+     * @param to       The last date of the range, inclusive
+     * @param category Only stream the tasks of this category, or null for every category
+     * @param done     Only stream the tasks in this done state, or null for both
+     * @return The tasks, the stream has to be closed once it is used
+     */
+    public Stream<Task> streamTasks(LocalDate from, LocalDate to, String category, Boolean done) {
+        StringBuilder select = new StringBuilder("SELECT * FROM `task` WHERE date BETWEEN ? AND ? AND `recurrence` IS NULL");
+        List<Object> params = new ArrayList<>();
+        params.add(from);
+        params.add(to);
+        if (category != null) {
+            select.append(" AND category = ?");
+            params.add(category);
+        }
+        if (done != null) {
+            select.append(" AND isDone = ?");
+            params.add(done);
+        }
+        select.append(" ORDER BY `date`, `time`");
+        Stream<Task> tasks = openCursor(select.toString(), params.toArray());
+
+        // Merge the two ordered sequences
+        Iterator<Task> rows = tasks.iterator();
+        Iterator<Task> occurrences = recurringTasks.occurrences(from, to, category, done);
+        Spliterator<Task> merged = new Spliterators.AbstractSpliterator<Task>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            private Task row;
+            private Task occurrence;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super Task> action) {
+                if (row == null && rows.hasNext()) {
+                    row = rows.next();
+                }
+                if (occurrence == null && occurrences.hasNext()) {
+                    occurrence = occurrences.next();
+                }
+                if (row == null && occurrence == null) {
+                    return false;
+                }
+                if (occurrence == null || (row != null && !row.getDateTime().isAfter(occurrence.getDateTime()))) {
+                    action.accept(row);
+                    row = null;
+                } else {
+                    action.accept(occurrence);
+                    occurrence = null;
+                }
+                return true;
+            }
+        };
+        return StreamSupport.stream(merged, false).onClose(tasks::close);
+    }
+
+    /**
+     * openCursor - Run a task query on a connection of its own and stream the rows as they are read.
+     * The connection uses lazy query execution and a forward only result set, so H2 reads the rows from the table
+     * as the stream asks for them instead of building the whole result first, and memory use does not grow with
+     * the number of rows. Closing the stream closes the result set, the statement and the connection.
+     * The cursor reads without holding the lock of this object, so the UI can keep using the database meanwhile.
+     *
+     * @param sql    The task query with ? placeholders for the parameters
+     * @param params The parameter values
+     * @return The tasks, the stream has to be closed once it is used
+     */
+    private Stream<Task> openCursor(String sql, Object... params) {
+        Connection cursorConnection = null;
+        try {
+            cursorConnection = DriverManager.getConnection(connectionUrl + ";LAZY_QUERY_EXECUTION=TRUE", user, pass);
+            cursorConnection.setReadOnly(true);
+            PreparedStatement ps = cursorConnection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+            ResultSet rs = ps.executeQuery();
+            Connection opened = cursorConnection;
+            Spliterator<Task> rows = new Spliterators.AbstractSpliterator<Task>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super Task> action) {
+                    try {
+                        if (!rs.next()) {
+                            return false;
+                        }
+                        action.accept(readTask(rs));
+                        return true;
+                    } catch (SQLException e) {
+                        e.printStackTrace();
+                        return false;
+                    }
+                }
+            };
+            return StreamSupport.stream(rows, false).onClose(() -> {
+                // Closing the connection also closes its statement and result set
+                try {
+                    opened.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
+            if (cursorConnection != null) {
+                try {
+                    cursorConnection.close();
+                } catch (SQLException closeException) {
+                    closeException.printStackTrace();
+                }
+            }
+            return Stream.empty();
         }
-        return tasks;
+    }
+
+    /**
+     * readTask - Create a task from the current row of a task query
+     *
+     * @param rs The result set, positioned on a row of the task table
+     * @return The task
+     * @throws SQLException If the row cannot be read
+     */
+    private static Task readTask(ResultSet rs) throws SQLException {
+        Task t = new Task();
+        t.setID(rs.getInt("ID"));
+        t.setTitle(rs.getString("Title"));
+        t.setDescription(rs.getString("Description"));
+        t.setCategory(rs.getString("Category"));
+        t.setDone(rs.getBoolean("isDone"));
+        t.setDateTime(LocalDateTime.of(rs.getObject("Date", LocalDate.class), rs.getObject("Time", LocalTime.class)));
+        String rule = rs.getString("recurrence");
+        if (rule != null) {
+            t.setRecurrence(Recurrence.parse(rule, t.getDate()));
+        }
+        // getInt reads a missing duration as 0
+        t.setDuration(rs.getInt("duration"));
+        t.setUid(rs.getString("uid"));
+        return t;
+    }
+
+    /**
+     * duration - Get the duration column value of a task, null if the task has no duration
+     */
+    private static Integer duration(Task t) {
+        return t.getDuration() > 0 ? t.getDuration() : null;
+    }
+
+    /**
+     * getConflicts - Get the tasks which overlap a task on its day.
+     * The interval tree of the day is kept with the day in the task cache, so once the day is cached
+     * checking a task against a busy day takes O(log n + k) and does not go through every task of the day.
+     *
+     * @param t The task to check, which is not reported as a conflict with itself
+     * @return Copies of the overlapping tasks in start time order
+     */
+    public List<Task> getConflicts(Task t) {
+        long start = System.nanoTime();
+        IntervalTree tree = taskCache.getTree(t.getDate());
+        if (tree == null) {
+            ArrayList<Task> tasks = getTasks(t.getDate());
+            tree = taskCache.getTree(t.getDate());
+            if (tree == null) {
+                // The day was changed while it was read, so it was not cached
+                tree = new IntervalTree(tasks);
+            }
+        }
+        List<Task> conflicts = new ArrayList<>();
+        for (Task conflict : tree.overlapping(t)) {
+            conflicts.add(new Task(conflict));
+        }
+        Metrics.record("Database.getConflicts", start);
+        return conflicts;
     }
 
     /**
      * hasTasks - Check if there is any task for a specific date
      *
-     * @param date The date string
+     * @param date The date
      *             <p>
      *             return true if there are tasks, else return false
      */
-    public boolean hasTasks(String date) {
+    public boolean hasTasks(LocalDate date) {
+        long start = System.nanoTime();
+        if (recurringTasks.hasTasks(date)) {
+            Metrics.record("Database.hasTasks", start);
+            return true;
+        }
         boolean hasEvents = false;
-        String select = "SELECT * FROM `task` WHERE date = '" + date + "'";
+        String select = "SELECT 1 FROM `task` WHERE date = ? AND `recurrence` IS NULL LIMIT 1";
+        ConnectionPool.PooledConnection c = null;
         try {
-            ResultSet rs = statement.executeQuery(select);
-            hasEvents = rs.next();
+            c = pool.acquire();
+            PreparedStatement ps = c.prepare(select);
+            ps.setObject(1, date);
+            try (ResultSet rs = ps.executeQuery()) {
+                hasEvents = rs.next();
+            }
         } catch (SQLException e) {
             e.printStackTrace();
+            Metrics.error("Database.hasTasks");
+        } finally {
+            pool.release(c);
+            Metrics.record("Database.hasTasks", start);
         }
         return hasEvents;
     }
 
+    /**
+     * search - Find the tasks and notes which contain every word of a query, the latest days first.
+     * The first search reads all the tasks and notes into the search index, after that only the index is searched
+     * and the titles and texts of the results are read.
+     *
+     * @param query The words to search for, each word also matches the longer words it starts
+     * @param limit The maximum number of results
+     * @return The matching tasks and notes
+     */
+    public List<SearchResult> search(String query, int limit) {
+        long start = System.nanoTime();
+        List<SearchResult> results;
+        // The writes wait for the index while it is built, so it misses none of them
+        synchronized (searchIndex) {
+            if (!searchIndex.isBuilt()) {
+                buildSearchIndex();
+            }
+            results = searchIndex.search(query, limit);
+        }
+
+        List<Integer> taskIDs = new ArrayList<>();
+        List<LocalDate> notesDates = new ArrayList<>();
+        for (SearchResult result : results) {
+            if (result.isNotes()) {
+                notesDates.add(result.getDate());
+            } else {
+                taskIDs.add(result.getTaskID());
+            }
+        }
+        Map<Integer, String[]> tasks = new HashMap<>();
+        Map<LocalDate, String> notes = new HashMap<>();
+        ConnectionPool.PooledConnection c = null;
+        try {
+            c = pool.acquire();
+            if (!taskIDs.isEmpty()) {
+                PreparedStatement ps = c.prepare("SELECT `ID`, `title`, `description` FROM `task` WHERE `ID` = ANY(?)");
+                ps.setObject(1, taskIDs.toArray(new Integer[0]));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        tasks.put(rs.getInt("ID"), new String[]{rs.getString("title"), rs.getString("description")});
+                    }
+                }
+            }
+            if (!notesDates.isEmpty()) {
+                PreparedStatement ps = c.prepare("SELECT `date`, `note` FROM `notes` WHERE `date` = ANY(?)");
+                ps.setObject(1, notesDates.toArray(new LocalDate[0]));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        notes.put(rs.getObject("date", LocalDate.class), rs.getString("note"));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            Metrics.error("Database.search");
+        } finally {
+            pool.release(c);
+        }
+
+        // Results deleted since the index was searched are left out
+        List<SearchResult> found = new ArrayList<>();
+        for (SearchResult result : results) {
+            if (result.isNotes() && notes.containsKey(result.getDate())) {
+                result.setTitle("Notes");
+                result.setText(notes.get(result.getDate()));
+                found.add(result);
+            } else if (!result.isNotes() && tasks.containsKey(result.getTaskID())) {
+                result.setTitle(tasks.get(result.getTaskID())[0]);
+                result.setText(tasks.get(result.getTaskID())[1]);
+                found.add(result);
+            }
+        }
+        Metrics.record("Database.search", start);
+        return found;
+    }
+
+    /**
+     * buildSearchIndex - Read every task and every day's notes into the search index
+     */
+    private void buildSearchIndex() {
+        long start = System.nanoTime();
+        Map<LocalDate, String> notes = new HashMap<>();
+        ConnectionPool.PooledConnection c = null;
+        try {
+            c = pool.acquire();
+            try (ResultSet rs = c.prepare("SELECT `date`, `note` FROM `notes`").executeQuery()) {
+                while (rs.next()) {
+                    notes.put(rs.getObject("date", LocalDate.class), rs.getString("note"));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            Metrics.error("Database.buildSearchIndex");
+        } finally {
+            pool.release(c);
+        }
+        try (Stream<Task> tasks = streamTasks()) {
+            searchIndex.build(tasks.iterator(), notes);
+        }
+        Metrics.record("Database.buildSearchIndex", start);
+    }
+
+    /**
+     * getRecurringTasks - Read the repeating tasks, each once with its rule and first day
+     *
+     * @return The repeating tasks
+     */
+    private List<Task> getRecurringTasks() {
+        List<Task> tasks = new ArrayList<>();
+        String select = "SELECT * FROM `task` WHERE `recurrence` IS NOT NULL";
+        ConnectionPool.PooledConnection c = null;
+        try {
+            c = pool.acquire();
+            try (ResultSet rs = c.prepare(select).executeQuery()) {
+                while (rs.next()) {
+                    tasks.add(readTask(rs));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            pool.release(c);
+        }
+        return tasks;
+    }
+
+    /**
+     * invalidateRecurringTasks - Forget the worked out days of the repeating tasks and the cached days they were on
+     */
+    private void invalidateRecurringTasks() {
+        recurringTasks.invalidate();
+        taskCache.clear();
+    }
+
+    /**
+     * async - Get the asynchronous facade of this database, used by the UI to keep the event dispatch thread free
+     */
+    public AsyncDatabase async() {
+        return async;
+    }
+
+    /**
+     * getTaskCache - Get the cache of the task lists, which reports the cache hits and misses
+     */
+    public TaskCache getTaskCache() {
+        return taskCache;
+    }
+
+    /**
+     * getBusyDays - Get the days of a month which have tasks, using one grouped query for the whole month
+     *
+     * @param month The year and month to check
+     *              <p>
+     *              return a BitSet where bit n is set if day n of the month has tasks
+     */
+    public BitSet getBusyDays(YearMonth month) {
+        long start = System.nanoTime();
+        BitSet busyDays = recurringTasks.getBusyDays(month);
+        String select = "SELECT `date` FROM `task` WHERE date BETWEEN ? AND ? AND `recurrence` IS NULL GROUP BY `date`";
+        ConnectionPool.PooledConnection c = null;
+        try {
+            c = pool.acquire();
+            PreparedStatement ps = c.prepare(select);
+            ps.setObject(1, month.atDay(1));
+            ps.setObject(2, month.atEndOfMonth());
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    busyDays.set(rs.getObject("date", LocalDate.class).getDayOfMonth());
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            Metrics.error("Database.getBusyDays");
+        } finally {
+            pool.release(c);
+            Metrics.record("Database.getBusyDays", start);
+        }
+        return busyDays;
+    }
+
     /**
      * createTask - Create a task
      *
      * @param t The task to be created
      */
-    public void createTask(Task t) {
-        t.setTitle(t.getTitle().replace("'", "''"));
-        t.setDescription(t.getDescription().replace("'", "''"));
-        String insert = "INSERT INTO `task`(`title`, `description`, `category`, `isDone`, `date`, `time`) VALUES ('" + t.getTitle() + "','" + t.getDescription() + "','" + t.getCategory() + "','" + t.isDone() + "','" + t.getDateToString() + "','" + t.getTimeToString() + "')";
+    public synchronized void createTask(Task t) {
+        long start = System.nanoTime();
+        String insert = "INSERT INTO `task`(`title`, `description`, `category`, `isDone`, `date`, `time`, `recurrence`, `duration`) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        String rule = t.getRecurrence() == null ? null : t.getRecurrence().toString();
         try {
-            statement.execute(insert);
+            PreparedStatement ps = prepareInsert(insert);
+            ps.setString(1, t.getTitle());
+            ps.setString(2, t.getDescription());
+            ps.setString(3, t.getCategory());
+            ps.setBoolean(4, t.isDone());
+            ps.setObject(5, t.getStoredDate());
+            ps.setObject(6, t.getDateTime().toLocalTime().truncatedTo(ChronoUnit.MINUTES));
+            ps.setString(7, rule);
+            ps.setObject(8, duration(t));
+            ps.executeUpdate();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (keys.next()) {
+                    t.setID(keys.getInt(1));
+                }
+            }
+            if (rule != null) {
+                invalidateRecurringTasks();
+            } else {
+                taskCache.invalidate(t.getDate());
+            }
+            searchIndex.putTask(t.getID(), t.getStoredDate(), t.getTitle(), t.getDescription());
+            // Journal the insert with its ID, so replaying it twice does not duplicate the task
+            log("MERGE INTO `task`(`ID`, `title`, `description`, `category`, `isDone`, `date`, `time`, `recurrence`, `duration`) KEY(`ID`) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                    t.getID(), t.getTitle(), t.getDescription(), t.getCategory(), t.isDone(), t.getStoredDate(), t.getDateTime().toLocalTime().truncatedTo(ChronoUnit.MINUTES), rule, duration(t));
         } catch (SQLException e) {
             e.printStackTrace();
+            Metrics.error("Database.createTask");
+        } finally {
+            Metrics.record("Database.createTask", start);
         }
     }
 
@@ -167,14 +1077,37 @@ public class Database {
      *
      * @param t The task to be updated
      */
-    public void updateTask(Task t) {
-        t.setTitle(t.getTitle().replace("'", "''"));
-        t.setDescription(t.getDescription().replace("'", "''"));
-        String update = "UPDATE `task` SET title='" + t.getTitle() + "',description='" + t.getDescription() + "',category='" + t.getCategory() + "',isDone='" + t.isDone() + "',date='" + t.getDateToString() + "',time='" + t.getTimeToString() + "' WHERE ID = " + t.getID() + ";";
+    public synchronized void updateTask(Task t) {
+        long start = System.nanoTime();
+        String update = "UPDATE `task` SET title = ?, description = ?, category = ?, isDone = ?, date = ?, time = ?, recurrence = ?, duration = ? WHERE ID = ?";
+        String rule = t.getRecurrence() == null ? null : t.getRecurrence().toString();
         try {
-            statement.execute(update);
+            PreparedStatement ps = prepare(update);
+            ps.setString(1, t.getTitle());
+            ps.setString(2, t.getDescription());
+            ps.setString(3, t.getCategory());
+            ps.setBoolean(4, t.isDone());
+            ps.setObject(5, t.getStoredDate());
+            ps.setObject(6, t.getDateTime().toLocalTime().truncatedTo(ChronoUnit.MINUTES));
+            ps.setString(7, rule);
+            ps.setObject(8, duration(t));
+            ps.setInt(9, t.getID());
+            ps.executeUpdate();
+            if (rule != null || recurringTasks.contains(t.getID())) {
+                // The task repeats, or did, which changes many days
+                invalidateRecurringTasks();
+            } else {
+                // The task may have moved, drop both the day it was cached under and its new day
+                taskCache.invalidateTask(t.getID());
+                taskCache.invalidate(t.getDate());
+            }
+            searchIndex.putTask(t.getID(), t.getStoredDate(), t.getTitle(), t.getDescription());
+            log(update, t.getTitle(), t.getDescription(), t.getCategory(), t.isDone(), t.getStoredDate(), t.getDateTime().toLocalTime().truncatedTo(ChronoUnit.MINUTES), rule, duration(t), t.getID());
         } catch (SQLException e) {
             e.printStackTrace();
+            Metrics.error("Database.updateTask");
+        } finally {
+            Metrics.record("Database.updateTask", start);
         }
     }
 
@@ -183,12 +1116,25 @@ public class Database {
      *
      * @param ID The id of the task to be deleted
      */
-    public void deleteTask(int ID) {
-        String update = "DELETE FROM `task` WHERE `ID` = " + ID + ";";
+    public synchronized void deleteTask(int ID) {
+        long start = System.nanoTime();
+        String delete = "DELETE FROM `task` WHERE `ID` = ?";
         try {
-            statement.execute(update);
+            PreparedStatement ps = prepare(delete);
+            ps.setInt(1, ID);
+            ps.executeUpdate();
+            if (recurringTasks.contains(ID)) {
+                invalidateRecurringTasks();
+            } else {
+                taskCache.invalidateTask(ID);
+            }
+            searchIndex.removeTask(ID);
+            log(delete, ID);
         } catch (SQLException e) {
             e.printStackTrace();
+            Metrics.error("Database.deleteTask");
+        } finally {
+            Metrics.record("Database.deleteTask", start);
         }
     }
 
@@ -198,14 +1144,24 @@ public class Database {
      * @param day The number of the day in the year
      */
     public String getQuote(int day) {
-        String select = "SELECT * FROM `quotes` WHERE ID = " + day + ";";
+        long start = System.nanoTime();
+        String select = "SELECT `quote` FROM `quotes` WHERE ID = ?";
+        ConnectionPool.PooledConnection c = null;
         try {
-            ResultSet rs = statement.executeQuery(select);
-            if (rs.next()) {
-                return rs.getString("quote");
+            c = pool.acquire();
+            PreparedStatement ps = c.prepare(select);
+            ps.setInt(1, day);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getString("quote");
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
+            Metrics.error("Database.getQuote");
+        } finally {
+            pool.release(c);
+            Metrics.record("Database.getQuote", start);
         }
         return "";
     }
@@ -213,18 +1169,28 @@ public class Database {
     /**
      * hasNotes - Check if there is any notes for a specific date
      *
-     * @param date The date string
+     * @param date The date
      *             <p>
      *             return true if there are tasks, else return false
      */
-    public boolean hasNotes(String date) {
+    public boolean hasNotes(LocalDate date) {
+        long start = System.nanoTime();
         boolean hasNotes = false;
-        String select = "SELECT * FROM `notes` WHERE date = '" + date + "';";
+        String select = "SELECT 1 FROM `notes` WHERE date = ? LIMIT 1";
+        ConnectionPool.PooledConnection c = null;
         try {
-            ResultSet rs = statement.executeQuery(select);
-            hasNotes = rs.next();
+            c = pool.acquire();
+            PreparedStatement ps = c.prepare(select);
+            ps.setObject(1, date);
+            try (ResultSet rs = ps.executeQuery()) {
+                hasNotes = rs.next();
+            }
         } catch (SQLException e) {
             e.printStackTrace();
+            Metrics.error("Database.hasNotes");
+        } finally {
+            pool.release(c);
+            Metrics.record("Database.hasNotes", start);
         }
         return hasNotes;
     }
@@ -232,69 +1198,199 @@ public class Database {
     /**
      * getNotes - Get notes for a specific date
      *
-     * @param date The date string
+     * @param date The date
      *             <p>
      *             return a string of notes
      */
-    public String getNotes(String date) {
-        String select = "SELECT * FROM `notes` WHERE date = '" + date + "';";
+    public String getNotes(LocalDate date) {
+        long start = System.nanoTime();
+        String select = "SELECT `note` FROM `notes` WHERE date = ?";
+        ConnectionPool.PooledConnection c = null;
         try {
-            ResultSet rs = statement.executeQuery(select);
-            if (rs.next()) {
-                return rs.getString("note");
+            c = pool.acquire();
+            PreparedStatement ps = c.prepare(select);
+            ps.setObject(1, date);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getString("note");
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
+            Metrics.error("Database.getNotes");
+        } finally {
+            pool.release(c);
+            Metrics.record("Database.getNotes", start);
         }
         return "";
     }
 
     /**
-     * createNotes - Create notes for a specific date
+     * saveNotes - Save the notes of a specific date, replacing the notes the date already has
      *
-     * @param date The date string
+     * @param date The date
      * @param note The notes string
      */
-    public void createNotes(String date, String note) {
-        note = note.replace("'", "''");
-        String insert = "INSERT INTO `notes`(`date`,`note`) VALUES ('" + date + "','" + note + "')";
+    public synchronized void saveNotes(LocalDate date, String note) {
+        long start = System.nanoTime();
+        String merge = "MERGE INTO `notes`(`date`, `note`) KEY(`date`) VALUES (?, ?)";
         try {
-            statement.execute(insert);
+            PreparedStatement ps = prepare(merge);
+            ps.setObject(1, date);
+            ps.setString(2, note);
+            ps.executeUpdate();
+            searchIndex.putNotes(date, note);
+            log(merge, date, note);
         } catch (SQLException e) {
             e.printStackTrace();
+            Metrics.error("Database.saveNotes");
+        } finally {
+            Metrics.record("Database.saveNotes", start);
         }
     }
 
     /**
-     * updateNotes - Update notes for a specific date
+     * prepare - Get the prepared statement for a query, preparing it on first use.
+     * Statements are cached for the lifetime of the connection so H2 parses and plans each query only once.
      *
-     * @param date The date string
-     * @param note The notes string
+     * @param sql The query with ? placeholders for the parameters
+     * @return The cached prepared statement
+     * @throws SQLException If the query cannot be prepared
+     */
+    private PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement ps = preparedStatements.get(sql);
+        if (ps == null) {
+            ps = connection.prepareStatement(sql);
+            preparedStatements.put(sql, ps);
+        }
+        return ps;
+    }
+
+    /**
+     * prepareInsert - Get the prepared statement for an insert which returns the generated ID.
+     *
+     * @param sql The insert with ? placeholders for the parameters
+     * @return The cached prepared statement
+     * @throws SQLException If the insert cannot be prepared
      */
-    public void updateNotes(String date, String note) {
-        note = note.replace("'", "''");
-        String update = "UPDATE `notes` SET note='" + note + "' WHERE date = '" + date + "';";
+    private PreparedStatement prepareInsert(String sql) throws SQLException {
+        PreparedStatement ps = preparedStatements.get(sql);
+        if (ps == null) {
+            ps = connection.prepareStatement(sql, new String[]{"ID"});
+            preparedStatements.put(sql, ps);
+        }
+        return ps;
+    }
+
+    /**
+     * log - Append a change to the journal, and compact the journal into the snapshot once it is large enough.
+     *
+     * @param sql    The idempotent statement which redoes the change
+     * @param params The statement parameters
+     */
+    private void log(String sql, Object... params) {
+        if (journal == null) {
+            return;
+        }
         try {
-            statement.execute(update);
-        } catch (SQLException e) {
+            journal.append(sql, params);
+        } catch (IOException e) {
             e.printStackTrace();
         }
+        if (journal.size() >= compactThreshold) {
+            scheduleCompaction();
+        }
     }
 
     /**
-     * closeConnection - Close connection and persist data
+     * restartIdentity - Move the ID sequence of a table past the highest ID in the table
+     *
+     * @param table The table name
+     * @throws SQLException If the sequence cannot be changed
      */
-    public void closeConnection() {
+    private void restartIdentity(String table) throws SQLException {
+        try (ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(`ID`), 0) + 1 FROM `" + table + "`")) {
+            rs.next();
+            statement.execute("ALTER TABLE `" + table + "` ALTER COLUMN `ID` RESTART WITH " + rs.getLong(1));
+        }
+    }
+
+    /**
+     * scheduleCompaction - Write the snapshot and empty the journal on the background compactor thread.
+     */
+    private synchronized void scheduleCompaction() {
+        if (!compactionScheduled) {
+            compactionScheduled = true;
+            compactor.execute(this::compact);
+        }
+    }
+
+    /**
+     * compact - Write the whole database to the snapshot file and empty the journal.
+     * The snapshot is written to a temporary file first and then moved over the old one,
+     * so a crash at any point leaves a complete snapshot and a journal which covers the changes after it.
+     */
+    private synchronized void compact() {
+        compactionScheduled = false;
+        long start = System.nanoTime();
         try {
-            if (!connection.isClosed()) {
-                statement = connection.createStatement();
-                // Persist data by writting the data out to a snapshot file
-                statement.executeQuery("SCRIPT TO '" + snapShotFile + ".sql'");
-                // Close database connection
-                connection.close();
+            if (connection.isClosed()) {
+                return;
             }
-        } catch (SQLException e) {
+            File tmp = new File(snapShotFile + ".tmp");
+            statement.execute("SCRIPT TO '" + tmp.getPath() + "'");
+            Files.move(tmp.toPath(), new File(snapShotFile + ".sql").toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            journal.reset();
+            Metrics.record("Database.saveSnapshot", start);
+        } catch (SQLException | IOException e) {
             e.printStackTrace();
+            Metrics.error("Database.saveSnapshot");
+        }
+    }
+
+    /**
+     * saveSnapshot - Write the snapshot now and empty the journal, waiting until it is written.
+     * The file storage mode has no snapshot, and nothing is done.
+     */
+    public void saveSnapshot() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            // Runs after any compaction already scheduled on the compactor thread
+            compactor.submit(this::compact).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * closeConnection - Close connection.
+     * The data is already persisted by the database file, or by the snapshot and the journal, so closing does not depend on the amount of data.
+     */
+    public void closeConnection() {
+        // Let the pending writes of the UI finish first
+        async.shutdown();
+        // A running compaction holds the lock and finishes first, a pending one finds the connection closed
+        compactor.shutdown();
+        synchronized (this) {
+            try {
+                if (!connection.isClosed()) {
+                    // Close database connection, this also closes the cached prepared statements
+                    connection.close();
+                    preparedStatements.clear();
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            if (pool != null) {
+                pool.close();
+            }
+            if (journal != null) {
+                journal.close();
+            }
         }
     }
 }
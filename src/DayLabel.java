@@ -18,13 +18,13 @@ public class DayLabel extends JLabel {
     public DayLabel(String s, Color background, Color foreground, boolean btn) {
         setText(s);
         setHorizontalAlignment(JLabel.CENTER);
-        setFont(new Font("Helvetica", Font.BOLD, 15));
+        setFont(UIResources.font(Font.BOLD, 15));
         setOpaque(true);
         setBackground(background);
         setForeground(foreground);
         // if the label is a valid day, make it display as clickable.
         if (btn) {
-            setCursor(new Cursor(Cursor.HAND_CURSOR));
+            setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
         }
     }
 }
@@ -13,6 +13,7 @@ import java.time.format.DateTimeFormatter;
  * There is a motivational quote which changes based on the day of the year.
  */
 public class DaySchedule extends JPanel {
+    private static final DateTimeFormatter dayFormatter = DateTimeFormatter.ofPattern("dd MMMM yyyy, EEEE");
 
     /**
      * Class constructor.
@@ -22,6 +23,7 @@ public class DaySchedule extends JPanel {
      * @param database    The database object
      */
     public DaySchedule(JFrame frame, LocalDate selectedDay, Database database) {
+        long start = System.nanoTime();
         //Set up day schedule panel
         setPreferredSize(new Dimension(900, 500));
         setBorder(BorderFactory.createEmptyBorder(15, 10, 15, 10));
@@ -30,10 +32,10 @@ public class DaySchedule extends JPanel {
 
         // Get current date and show on the top of the panel
         LocalDate date = selectedDay;
-        String dateString = date.format(DateTimeFormatter.ofPattern("dd MMMM yyyy, EEEE"));
+        String dateString = date.format(dayFormatter);
         JLabel todayLabel = new JLabel(dateString);
-        todayLabel.setFont(new Font("Helvetica", Font.BOLD, 40));
-        todayLabel.setForeground(Color.decode("#4D2508"));
+        todayLabel.setFont(UIResources.font(Font.BOLD, 40));
+        todayLabel.setForeground(UIResources.color("#4D2508"));
         GridBagConstraints constraints = new GridBagConstraints();
         constraints.fill = GridBagConstraints.BOTH;
         constraints.weighty = 0.2;
@@ -44,7 +46,7 @@ public class DaySchedule extends JPanel {
         add(todayLabel, constraints);
 
         // Show that today's Label is clickable
-        todayLabel.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        todayLabel.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
         todayLabel.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
@@ -59,7 +61,7 @@ public class DaySchedule extends JPanel {
         constraints.weighty = 3;
         constraints.gridx = 0;
         constraints.gridy = 1;
-        DayScheduleTasks tasks = new DayScheduleTasks(selectedDay, database, frame, this);
+        DayScheduleTasks tasks = new DayScheduleTasks(new CalendarModel(selectedDay), database);
         add(tasks, constraints);
 
         // Add notes section to left side in the center
@@ -73,14 +75,15 @@ public class DaySchedule extends JPanel {
         constraints.gridx = 0;
         constraints.gridy = 2;
         constraints.insets = new Insets(20, 35, 0, 0);
-        String quoteString = database.getQuote(selectedDay.getDayOfYear());
-        JTextArea quoteLabel = new JTextArea(quoteString);
+        JTextArea quoteLabel = new JTextArea();
         quoteLabel.setEditable(false);
         quoteLabel.setWrapStyleWord(true);
         quoteLabel.setLineWrap(true);
-        quoteLabel.setFont(new Font("Helvetica", Font.PLAIN | Font.ITALIC, 13));
+        quoteLabel.setFont(UIResources.font(Font.PLAIN | Font.ITALIC, 13));
         quoteLabel.setPreferredSize(new Dimension(700, 50));
         add(quoteLabel, constraints);
+        database.async().getQuote(selectedDay.getDayOfYear()).thenAcceptAsync(quoteLabel::setText, AsyncDatabase.EDT);
+        Metrics.record("UI.DaySchedule.build", start);
     }
 
     /**
@@ -95,45 +98,23 @@ public class DaySchedule extends JPanel {
         textAreaPanel.setBackground(null);
 
         JLabel notesLabel = new JLabel("Notes: ");
-        notesLabel.setFont(new Font("Helvetica", Font.BOLD, 25));
+        notesLabel.setFont(UIResources.font(Font.BOLD, 25));
         notesLabel.setBorder(BorderFactory.createEmptyBorder(5, 15, 5, 15));
         textAreaPanel.add(notesLabel, BorderLayout.NORTH);
 
-        JTextArea textArea = new JTextArea();
-        Boolean isNew = !database.hasNotes(selectedDay.format(DateTimeFormatter.ofPattern("dd-MM-yyyy")));
-
-        if (!isNew) {
-            textArea.setText(database.getNotes(selectedDay.format(DateTimeFormatter.ofPattern("dd-MM-yyyy"))));
-        }
-        textArea.setFont(new Font("Helvetica", Font.PLAIN, 15));
+        JTextArea textArea = new JTextArea("Loading notes...");
+        textArea.setEditable(false);
+        textArea.setFont(UIResources.font(Font.PLAIN, 15));
         textArea.setBorder(BorderFactory.createMatteBorder(1, 1, 1, 1, Color.BLACK));
         textArea.setLineWrap(true);
-        textArea.addMouseListener(new MouseListener() {
-            @Override
-            public void mouseClicked(MouseEvent e) {
-            }
-
-            @Override
-            public void mousePressed(MouseEvent e) {
-            }
-
-            @Override
-            public void mouseReleased(MouseEvent e) {
-            }
-
-            @Override
-            public void mouseEntered(MouseEvent e) {
-            }
 
-            @Override
-            public void mouseExited(MouseEvent e) {
-                if (isNew) {
-                    database.createNotes(selectedDay.format(DateTimeFormatter.ofPattern("dd-MM-yyyy")), textArea.getText());
-                } else {
-                    database.updateNotes(selectedDay.format(DateTimeFormatter.ofPattern("dd-MM-yyyy")), textArea.getText());
-                }
-            }
-        });
+        // Load the notes off the event dispatch thread, the notes can be edited once they are loaded
+        database.async().read(() -> database.getNotes(selectedDay)).thenAcceptAsync(notes -> {
+            textArea.setText(notes);
+            textArea.setEditable(true);
+            // Save the notes as they are typed
+            new NotesAutosave(database, selectedDay, textArea, notes);
+        }, AsyncDatabase.EDT);
         JScrollPane scrollPane = new JScrollPane(textArea);
         textAreaPanel.add(scrollPane);
         return textAreaPanel;
@@ -1,8 +1,8 @@
 import javax.swing.*;
+import javax.swing.table.TableCellRenderer;
 import java.awt.*;
 import java.awt.event.*;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 
 /**
@@ -10,21 +10,26 @@ import java.util.ArrayList;
  * <p>
  * This class creates the tasks table of a spedific day.
  */
-public class DayScheduleTasks extends JPanel {
+public class DayScheduleTasks extends JPanel implements CalendarModel.Listener {
+    private final CalendarModel model;
+    private final Database database;
+
+    // Placeholder shown until the tasks are first loaded
+    private final JLabel loading;
+    private TaskTableModel tableModel;
 
     /**
      * Class constructor.
      *
-     * @param frame       The main frame object
-     * @param date        The selected date
-     * @param database    The database object
-     * @param parentPanel The parent panel object
+     * @param model    The calendar model holding the selected date
+     * @param database The database object
      */
-    public DayScheduleTasks(LocalDate date, Database database, JFrame frame, JPanel parentPanel) {
+    public DayScheduleTasks(CalendarModel model, Database database) {
+        this.model = model;
+        this.database = database;
 
         //Set up tasks panel
         setPreferredSize(new Dimension(400, 300));
-        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern(("dd-MM-yyyy"));
         setLayout(new BorderLayout());
         setBackground(Color.WHITE);
 
@@ -34,17 +39,17 @@ public class DayScheduleTasks extends JPanel {
         topPanel.setBackground(null);
 
         JLabel tasksLabel = new JLabel("Tasks");
-        tasksLabel.setFont(new Font("Helvetica", Font.BOLD, 25));
+        tasksLabel.setFont(UIResources.font(Font.BOLD, 25));
         topPanel.add(tasksLabel, BorderLayout.WEST);
 
         // Add the add button to show at the right, on top of the table.
-        JLabel addButton = new JLabel(new ImageIcon("resources/add.png"));
-        addButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        JLabel addButton = new JLabel(UIResources.icon("add.png"));
+        addButton.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
         addButton.addMouseListener(new MouseListener() {
             @Override
             public void mouseClicked(MouseEvent e) {
                 // Opens task editor to add a task
-                new TaskEditor(new Task(date), database, frame, parentPanel);
+                new TaskEditor(new Task(model.getSelectedDay()), database, model);
             }
 
             @Override
@@ -66,149 +71,159 @@ public class DayScheduleTasks extends JPanel {
         topPanel.add(addButton, BorderLayout.EAST);
         add(topPanel, BorderLayout.NORTH);
 
-        // Retreive the tasks from the database
-        ArrayList<Task> tasks = database.getTasks(dateFormatter.format(date));
-        // Default rows to 6(header + 5 tasks), reserves the default size of the tasks panel if tasks arraylist size is less than 6
-        int rows = 6;
-        // Increase the row size if tasks arraylist size is more than 5
-        if (tasks.size() > 5) {
-            // Adding 1 to include the header row
-            rows = tasks.size() + 1;
-        }
+        // Show a placeholder until the tasks are loaded
+        loading = new JLabel("Loading tasks...");
+        loading.setHorizontalAlignment(JLabel.CENTER);
+        loading.setFont(UIResources.font(Font.PLAIN, 15));
+        loading.setForeground(Color.DARK_GRAY);
+        add(loading, BorderLayout.CENTER);
 
-        // Set up the table
-        JPanel list = new JPanel(new GridLayout(rows, 1, 2, 2));
-//        list.setPreferredSize(new Dimension(400, 300));
-        list.setBackground(Color.WHITE);
-
-
-
-        JPanel header = new JPanel(new GridLayout(1, 6));
-        header.setPreferredSize(new Dimension(350, 40));
-        header.setBackground(Color.decode("#aa6231"));
-        header.setBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, Color.BLACK));
-
-        // Add table headers
-        header.add(createHeaderLabel(""));
-        header.add(createHeaderLabel("Time"));
-        header.add(createHeaderLabel("Task"));
-        header.add(createHeaderLabel("Category"));
-        header.add(createHeaderLabel("Done"));
-        list.add(header);
-
-        // Add tasks to table
-        for (int i = 0; i < tasks.size(); i++) {
-            final int j = i;
-            // Create a task panel for each task
-            JPanel task = new JPanel(new GridLayout(1, 6));
-            task.setPreferredSize(new Dimension(350, 30));
-            task.setBackground(Color.decode("#f0f0f0"));
-            task.setCursor(new Cursor(Cursor.HAND_CURSOR));
-            task.addMouseListener(new MouseListener() {
-                @Override
-                public void mouseClicked(MouseEvent e) {
-                    // Opens task editor to edit selected task
-                    new TaskEditor(tasks.get(j), database, frame, parentPanel);
-                }
+        loadTasks();
+        model.addListener(this);
+    }
 
-                @Override
-                public void mousePressed(MouseEvent e) {
-                }
+    /**
+     * loadTasks - Retreive the tasks from the database off the event dispatch thread and show them in the table.
+     */
+    private void loadTasks() {
+        long start = System.nanoTime();
+        database.async().getTasks(model.getSelectedDay()).thenAcceptAsync(tasks -> {
+            if (tableModel == null) {
+                remove(loading);
+                showTasks(tasks);
+                revalidate();
+                repaint();
+            } else {
+                tableModel.setTasks(tasks);
+            }
+            // From the request until the table shows the tasks
+            Metrics.record("UI.DayScheduleTasks.reload", start);
+        }, AsyncDatabase.EDT);
+    }
 
-                @Override
-                public void mouseReleased(MouseEvent e) {
-                }
+    @Override
+    public void tasksChanged(LocalDate date) {
+        if (date.equals(model.getSelectedDay())) {
+            loadTasks();
+        }
+    }
 
-                @Override
-                public void mouseEntered(MouseEvent e) {
-                }
+    @Override
+    public void allTasksChanged() {
+        loadTasks();
+    }
+
+    /**
+     * showTasks - Set up the table to show the list of tasks.
+     * The table paints only its visible rows with shared renderers, so days with many tasks stay cheap to show.
+     *
+     * @param tasks The tasks of the selected date
+     */
+    private void showTasks(ArrayList<Task> tasks) {
+        // Writes to database when checkbox state is changed.
+        tableModel = new TaskTableModel(tasks, t -> database.async().updateTask(t));
 
-                @Override
-                public void mouseExited(MouseEvent e) {
+        // Set up the table
+        JTable table = new JTable(tableModel);
+        table.setRowHeight(32);
+        table.setBackground(Color.WHITE);
+        table.setShowGrid(false);
+        table.setIntercellSpacing(new Dimension(0, 2));
+        table.setFillsViewportHeight(true);
+        table.setRowSelectionAllowed(false);
+        table.setFocusable(false);
+        table.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+        table.getTableHeader().setReorderingAllowed(false);
+        table.getTableHeader().setPreferredSize(new Dimension(350, 40));
+        table.getTableHeader().setDefaultRenderer(createHeaderRenderer());
+        table.setDefaultRenderer(String.class, createBodyRenderer());
+
+        // Add checkbox using custom image icon to the done column
+        Icon notSelected = UIResources.icon("check-box-not-selected.png");
+        Icon selected = UIResources.icon("check-box-selected.png");
+        JCheckBox rendererCheckBox = new JCheckBox();
+        rendererCheckBox.setIcon(notSelected);
+        rendererCheckBox.setSelectedIcon(selected);
+        rendererCheckBox.setBackground(UIResources.color("#f0f0f0"));
+        Color overlapBackground = UIResources.color("#f8d7c4");
+        table.setDefaultRenderer(Boolean.class, (t, value, isSelected, hasFocus, row, column) -> {
+            rendererCheckBox.setSelected((Boolean) value);
+            rendererCheckBox.setBackground(tableModel.isOverlapping(row) ? overlapBackground : UIResources.color("#f0f0f0"));
+            return rendererCheckBox;
+        });
+        JCheckBox editorCheckBox = new JCheckBox();
+        editorCheckBox.setIcon(notSelected);
+        editorCheckBox.setSelectedIcon(selected);
+        editorCheckBox.setBackground(UIResources.color("#f0f0f0"));
+        DefaultCellEditor checkBoxEditor = new DefaultCellEditor(editorCheckBox);
+        checkBoxEditor.setClickCountToStart(1);
+        table.setDefaultEditor(Boolean.class, checkBoxEditor);
+        // Stop editing as soon as the checkbox is clicked, so the change is written straight away
+        editorCheckBox.addItemListener(new ItemListener() {
+            @Override
+            public void itemStateChanged(ItemEvent e) {
+                if (table.isEditing()) {
+                    checkBoxEditor.stopCellEditing();
                 }
-            });
-
-            // add the task detail labels to the task panel
-            task.add(createBodyLabel(Integer.toString(i + 1), "#000000"));
-            task.add(createBodyLabel(tasks.get(i).getTimeToString(), "#000000"));
-            task.add(createBodyLabel(tasks.get(i).getTitle(), "#000000"));
-            task.add(createBodyLabel(tasks.get(i).getCategory(), getTaskColor(tasks.get(i).getCategory())));
-
-            // Add checkbox using custom image icon to the task panel
-            Icon notSelected = new ImageIcon("resources/check-box-not-selected.png");
-            Icon selected = new ImageIcon("resources/check-box-selected.png");
-            JCheckBox checkBox = new JCheckBox();
-            checkBox.setSelected(tasks.get(i).isDone());
-            checkBox.setIcon(notSelected);
-            checkBox.setSelectedIcon(selected);
-            checkBox.addItemListener(new ItemListener() {
-                @Override
-                public void itemStateChanged(ItemEvent e) {
-                    // Writes to database when checkbox state is changed.
-                    Task t = tasks.get(j);
-                    t.setDone(checkBox.isSelected());
-                    database.updateTask(t);
-                    parentPanel.revalidate();
+            }
+        });
+
+        table.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int row = table.rowAtPoint(e.getPoint());
+                int column = table.columnAtPoint(e.getPoint());
+                if (row >= 0 && column != TaskTableModel.DONE) {
+                    // Opens task editor to edit selected task
+                    new TaskEditor(tableModel.getTask(row), database, model);
                 }
-            });
-            task.add(checkBox);
-            list.add(task);
-        }
+            }
+        });
 
         // Add scroll pane
-        JScrollPane scrollPane = new JScrollPane(list);
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.getViewport().setBackground(Color.WHITE);
         add(scrollPane, BorderLayout.CENTER);
     }
 
     /**
-     * createHeaderLabel - Creates the header label for the task table
+     * createHeaderRenderer - Creates the renderer of the task table headers
      *
-     * @param label The string value to be shown in the label
-     * @return A JLabel object
+     * @return A table cell renderer
      */
-    private JLabel createHeaderLabel(String label) {
-        JLabel headerLabel = new JLabel(label);
-        headerLabel.setFont(new Font("Helvetica", Font.BOLD, 15));
+    private TableCellRenderer createHeaderRenderer() {
+        JLabel headerLabel = new JLabel();
+        headerLabel.setOpaque(true);
+        headerLabel.setBackground(UIResources.color("#aa6231"));
+        headerLabel.setFont(UIResources.font(Font.BOLD, 15));
         headerLabel.setForeground(Color.WHITE);
-        headerLabel.setBorder(BorderFactory.createEmptyBorder(5, 15, 5, 15));
-        return headerLabel;
+        headerLabel.setBorder(BorderFactory.createCompoundBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, Color.BLACK), BorderFactory.createEmptyBorder(5, 15, 5, 15)));
+        return (table, value, isSelected, hasFocus, row, column) -> {
+            headerLabel.setText(value.toString());
+            return headerLabel;
+        };
     }
 
     /**
-     * createBodyLabel - Creates the label which is used in the task body
+     * createBodyRenderer - Creates the renderer of the task table body, the category is shown in the category color
+     * and the tasks which overlap another task are highlighted
      *
-     * @param label     The string value to be shown in the label
-     * @param fontColor The label's font color
-     * @return A JLabel object
+     * @return A table cell renderer
      */
-    private JLabel createBodyLabel(String label, String fontColor) {
-        JLabel bodyLabel = new JLabel(label);
+    private TableCellRenderer createBodyRenderer() {
+        JLabel bodyLabel = new JLabel();
+        bodyLabel.setOpaque(true);
+        bodyLabel.setBackground(UIResources.color("#f0f0f0"));
         bodyLabel.setBorder(BorderFactory.createEmptyBorder(0, 15, 0, 15));
-        bodyLabel.setFont(new Font("Helvetica", Font.PLAIN, 15));
-        bodyLabel.setForeground(Color.decode(fontColor));
-        return bodyLabel;
-    }
-
-    /**
-     * getTaskColor - Get the corresponding color base on the task category
-     *
-     * @param category The task category passed in for checking
-     * @return A string that represents the color hex
-     */
-    private String getTaskColor(String category) {
-        switch (category) {
-            case "General":
-                return "#666822";
-            case "Holiday":
-                return "#c67713";
-            case "Personal":
-                return "#c1380a";
-            case "Meeting":
-                return "#742505";
-            case "Social":
-                return "#4d2508";
-            default:
-                return "#666822";
-        }
+        bodyLabel.setFont(UIResources.font(Font.PLAIN, 15));
+        Color black = UIResources.color("#000000");
+        Color background = UIResources.color("#f0f0f0");
+        Color overlapBackground = UIResources.color("#f8d7c4");
+        return (table, value, isSelected, hasFocus, row, column) -> {
+            bodyLabel.setText((String) value);
+            bodyLabel.setBackground(tableModel.isOverlapping(row) ? overlapBackground : background);
+            bodyLabel.setForeground(column == TaskTableModel.CATEGORY ? UIResources.categoryColor((String) value) : black);
+            return bodyLabel;
+        };
     }
 }
@@ -0,0 +1,216 @@
+import java.awt.*;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Audreen Soh
+ * <p>
+ * This class watches the Swing event dispatch thread for events which block it for too long.
+ * It replaces the system event queue with one that notes when each event starts and ends, and a daemon thread
+ * samples the stack of the event dispatch thread while an event runs past the threshold.
+ * When the event ends, the event, how long it blocked and the sampled stacks, most frequent first,
+ * are appended to the diagnostics file CalendarSchedulerDiagnostics.log, which is rolled over once it gets large.
+ * <p>
+ * The watchdog is off by default, start the application with -Dcalendar.watchdog=milliseconds to turn it on.
+ */
+public class EdtWatchdog extends EventQueue {
+    // System property with the threshold in milliseconds
+    private static final String thresholdProperty = "calendar.watchdog";
+    private static final String diagnosticsFile = "CalendarSchedulerDiagnostics.log";
+    // Size of the diagnostics file which starts a new file, and the number of old files kept
+    private static final long maxFileSize = 1024 * 1024;
+    private static final int maxOldFiles = 3;
+    // Number of stack frames written per sample
+    private static final int maxFrames = 40;
+    private static final DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    private final long thresholdNanos;
+    private final long sampleMillis;
+    private final File file;
+
+    // The event being dispatched, its sequence number and when it started or last made progress, 0 when idle
+    private volatile AWTEvent event;
+    private volatile long sequence;
+    private volatile long eventStart;
+    private volatile Thread dispatchThread;
+
+    /**
+     * install - Start the watchdog if the calendar.watchdog system property is set
+     */
+    public static void install() {
+        Long threshold = Long.getLong(thresholdProperty);
+        if (threshold != null && threshold > 0) {
+            install(threshold, new File(diagnosticsFile));
+        }
+    }
+
+    /**
+     * install - Start the watchdog
+     *
+     * @param thresholdMillis The time an event can block the event dispatch thread before it is reported
+     * @param file            The diagnostics file
+     * @return The watchdog
+     */
+    public static EdtWatchdog install(long thresholdMillis, File file) {
+        EdtWatchdog watchdog = new EdtWatchdog(thresholdMillis, file);
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(watchdog);
+        Thread sampler = new Thread(watchdog::sample, "edt-watchdog");
+        sampler.setDaemon(true);
+        sampler.start();
+        return watchdog;
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param thresholdMillis The time an event can block the event dispatch thread before it is reported
+     * @param file            The diagnostics file
+     */
+    private EdtWatchdog(long thresholdMillis, File file) {
+        this.thresholdNanos = thresholdMillis * 1000000;
+        // Take a few samples within the threshold, but not more often than every 10 ms
+        this.sampleMillis = Math.max(10, thresholdMillis / 4);
+        this.file = file;
+    }
+
+    /**
+     * dispatchEvent - Dispatch an event, noting when it starts and ends.
+     * A modal dialog dispatches the events of the dialog inside the event which opened it, the outer event
+     * is not blocking meanwhile, so its clock starts again once the inner event ends.
+     */
+    @Override
+    protected void dispatchEvent(AWTEvent e) {
+        AWTEvent outerEvent = event;
+        long outerSequence = sequence;
+        dispatchThread = Thread.currentThread();
+        event = e;
+        sequence = outerSequence + 1;
+        eventStart = System.nanoTime();
+        try {
+            super.dispatchEvent(e);
+        } finally {
+            if (outerEvent == null) {
+                eventStart = 0;
+            } else {
+                eventStart = System.nanoTime();
+            }
+            event = outerEvent;
+            sequence = sequence + 1;
+        }
+    }
+
+    /**
+     * sample - Sample the stack of the event dispatch thread while an event runs past the threshold,
+     * and report the event once it ends. Runs on the watchdog thread until the application exits.
+     */
+    private void sample() {
+        long stalledSequence = -1;
+        long stallStart = 0;
+        String stalledEvent = null;
+        List<StackTraceElement[]> samples = new ArrayList<>();
+        while (true) {
+            try {
+                Thread.sleep(sampleMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long seq = sequence;
+            long start = eventStart;
+            AWTEvent current = event;
+            Thread thread = dispatchThread;
+
+            // The stalled event ended, or another event is dispatched
+            if (stalledEvent != null && seq != stalledSequence) {
+                report(stalledEvent, stallStart, samples);
+                stalledEvent = null;
+                samples = new ArrayList<>();
+            }
+            if (start == 0 || current == null || thread == null || System.nanoTime() - start < thresholdNanos) {
+                continue;
+            }
+            StackTraceElement[] stack = thread.getStackTrace();
+            // The event may have ended while the stack was taken
+            if (sequence != seq) {
+                continue;
+            }
+            if (stalledEvent == null) {
+                stalledSequence = seq;
+                stallStart = start;
+                stalledEvent = describe(current);
+            }
+            samples.add(stack);
+        }
+    }
+
+    /**
+     * describe - Describe an event by its type and the component it was sent to
+     */
+    private static String describe(AWTEvent e) {
+        String description = e.paramString();
+        Object source = e.getSource();
+        return e.getClass().getSimpleName() + " " + description + " on " + (source == null ? "null" : source.getClass().getName());
+    }
+
+    /**
+     * report - Write a stalled event and its stack samples to the diagnostics file
+     *
+     * @param stalledEvent The description of the event
+     * @param start        The System.nanoTime() value when the event started blocking
+     * @param samples      The stacks sampled while it was blocking
+     */
+    private void report(String stalledEvent, long start, List<StackTraceElement[]> samples) {
+        Metrics.record("EDT.stall", start);
+        long millis = (System.nanoTime() - start) / 1000000;
+
+        // Group the identical stacks, the most frequent first
+        Map<List<StackTraceElement>, Integer> stacks = new LinkedHashMap<>();
+        for (StackTraceElement[] stack : samples) {
+            stacks.merge(Arrays.asList(stack), 1, Integer::sum);
+        }
+        List<Map.Entry<List<StackTraceElement>, Integer>> sorted = new ArrayList<>(stacks.entrySet());
+        sorted.sort((a, b) -> b.getValue() - a.getValue());
+
+        StringBuilder report = new StringBuilder();
+        report.append(LocalDateTime.now().format(timeFormatter)).append(" event dispatch thread blocked for about ")
+                .append(millis).append(" ms by ").append(stalledEvent).append(System.lineSeparator());
+        for (Map.Entry<List<StackTraceElement>, Integer> entry : sorted) {
+            report.append("  ").append(entry.getValue()).append(" of ").append(samples.size()).append(" samples:").append(System.lineSeparator());
+            List<StackTraceElement> stack = entry.getKey();
+            for (int i = 0; i < Math.min(stack.size(), maxFrames); i++) {
+                report.append("    at ").append(stack.get(i)).append(System.lineSeparator());
+            }
+            if (stack.size() > maxFrames) {
+                report.append("    ... ").append(stack.size() - maxFrames).append(" more").append(System.lineSeparator());
+            }
+        }
+        report.append(System.lineSeparator());
+        write(report.toString());
+    }
+
+    /**
+     * write - Append a report to the diagnostics file, first moving a full file aside to file.1, file.1 to file.2 and so on
+     *
+     * @param report The report
+     */
+    private void write(String report) {
+        if (file.length() >= maxFileSize) {
+            new File(file.getPath() + "." + maxOldFiles).delete();
+            for (int i = maxOldFiles - 1; i >= 1; i--) {
+                new File(file.getPath() + "." + i).renameTo(new File(file.getPath() + "." + (i + 1)));
+            }
+            file.renameTo(new File(file.getPath() + ".1"));
+        }
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8)) {
+            out.write(report);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -13,6 +13,7 @@ import java.time.format.DateTimeFormatter;
  * showing a list of task based on the date which the user clicked on in the calendar.
  */
 public class Home extends JPanel {
+    private static final DateTimeFormatter todayFormatter = DateTimeFormatter.ofPattern("dd MMMM yyyy, EEEE");
 
     /**
      * Class constructor.
@@ -22,6 +23,7 @@ public class Home extends JPanel {
      * @param selectedDay The selected date
      */
     public Home(JFrame frame, Database database, LocalDate selectedDay) {
+        long start = System.nanoTime();
 
         // Set up home panel
         setPreferredSize(new Dimension(900, 500));
@@ -31,10 +33,10 @@ public class Home extends JPanel {
 
         // Get current date and show on the top of the panel
         LocalDate date = LocalDate.now();
-        String dateString = date.format(DateTimeFormatter.ofPattern("dd MMMM yyyy, EEEE"));
+        String dateString = date.format(todayFormatter);
         JLabel todayLabel = new JLabel(dateString);
-        todayLabel.setFont(new Font("Helvetica", Font.BOLD, 40));
-        todayLabel.setForeground(Color.decode("#4D2508"));
+        todayLabel.setFont(UIResources.font(Font.BOLD, 40));
+        todayLabel.setForeground(UIResources.color("#4D2508"));
         GridBagConstraints constraints = new GridBagConstraints();
         constraints.fill = GridBagConstraints.BOTH;
         constraints.anchor = GridBagConstraints.EAST;
@@ -52,11 +54,14 @@ public class Home extends JPanel {
         constraints.gridx = 0;
         constraints.gridy = 1;
         constraints.insets = new Insets(0, 0, 0, 0);
-        add(new Calendar(date.getYear(), date.getMonthValue(), selectedDay, frame, this, database), constraints);
+        // The calendar and the tasks list share the selected day through the model
+        CalendarModel model = new CalendarModel(selectedDay);
+        add(new Calendar(model, frame, this, database), constraints);
 
         // Add task to the right side of the panel
         constraints.gridx = 1;
         constraints.gridy = 1;
-        add(new Tasks(selectedDay, database, frame, this), constraints);
+        add(new Tasks(model, database), constraints);
+        Metrics.record("UI.Home.build", start);
     }
 }
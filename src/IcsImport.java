@@ -0,0 +1,147 @@
+import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import java.awt.*;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Audreen Soh
+ * <p>
+ * This class imports the events of an iCalendar (.ics) file chosen by the user as tasks.
+ * The file is read and written to the database on a background thread, while a progress monitor shows how much
+ * of the file is read, with the number of tasks saved so far, and lets the user stop the import.
+ * The chunks written before the import is stopped are kept,
+ * and importing the file again updates the tasks already imported instead of adding them twice.
+ */
+public class IcsImport {
+    private final Component parent;
+    private final CalendarModel model;
+    private final Database database;
+
+    /**
+     * Class constructor, asks for the file to import and starts the import.
+     *
+     * @param parent   The component the import is started from
+     * @param model    The calendar model of the page, told that the tasks changed once the import ends
+     * @param database The database object
+     */
+    public IcsImport(Component parent, CalendarModel model, Database database) {
+        this.parent = parent;
+        this.model = model;
+        this.database = database;
+
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Import calendar");
+        chooser.setFileFilter(new FileNameExtensionFilter("iCalendar files (*.ics)", "ics"));
+        if (chooser.showOpenDialog(parent) == JFileChooser.APPROVE_OPTION) {
+            importFile(chooser.getSelectedFile());
+        }
+    }
+
+    /**
+     * importFile - Import a file on a background thread, showing the progress by the bytes of the file read so far
+     *
+     * @param file The .ics file
+     */
+    private void importFile(File file) {
+        ProgressMonitor monitor = new ProgressMonitor(parent, "Importing " + file.getName(), "Reading the file...", 0, 100);
+        monitor.setMillisToDecideToPopup(200);
+        AtomicLong bytesRead = new AtomicLong();
+        AtomicInteger imported = new AtomicInteger();
+        // Set when the user cancels the progress monitor, the import stops after the chunk being written
+        AtomicBoolean stopped = new AtomicBoolean();
+        long length = Math.max(1, file.length());
+
+        SwingWorker<Integer, Integer> worker = new SwingWorker<Integer, Integer>() {
+            private IcsReader reader;
+
+            @Override
+            protected Integer doInBackground() throws IOException {
+                try (InputStream in = new CountingInputStream(new FileInputStream(file), bytesRead)) {
+                    reader = new IcsReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16));
+                    return database.importTasks(reader, count -> {
+                        imported.set(count);
+                        setProgress((int) Math.min(99, bytesRead.get() * 100 / length));
+                        publish(count);
+                        return !stopped.get();
+                    });
+                }
+            }
+
+            @Override
+            protected void process(List<Integer> counts) {
+                if (monitor.isCanceled()) {
+                    stopped.set(true);
+                    return;
+                }
+                monitor.setProgress(getProgress());
+                monitor.setNote(counts.get(counts.size() - 1) + " tasks saved");
+            }
+
+            @Override
+            protected void done() {
+                monitor.close();
+                String message;
+                try {
+                    int count = get();
+                    if (stopped.get()) {
+                        message = "The import was stopped after " + count + " tasks.\nImport the file again to finish it.";
+                    } else {
+                        message = "Imported " + count + " tasks from " + file.getName() + ".";
+                    }
+                    if (reader.getSkipped() > 0) {
+                        message += "\n" + reader.getSkipped() + " events could not be read and were skipped.";
+                    }
+                } catch (InterruptedException | ExecutionException e) {
+                    e.printStackTrace();
+                    message = "The file could not be imported after " + imported.get() + " tasks.";
+                }
+                // Any day of the calendar may have new tasks
+                model.fireAllTasksChanged();
+                JOptionPane.showMessageDialog(parent, message, "Import calendar", JOptionPane.INFORMATION_MESSAGE);
+            }
+        };
+        worker.execute();
+    }
+
+    /**
+     * An input stream which counts the bytes read through it.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private final AtomicLong count;
+
+        private CountingInputStream(InputStream in, AtomicLong count) {
+            super(in);
+            this.count = count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count.incrementAndGet();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count.addAndGet(n);
+            }
+            return n;
+        }
+    }
+}
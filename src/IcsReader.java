@@ -0,0 +1,386 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * @author Audreen Soh
+ * <p>
+ * This class reads the events of an iCalendar (.ics) file as tasks, one event at a time,
+ * so only the event being read is kept in memory however large the file is.
+ * <p>
+ * Each VEVENT becomes a task: SUMMARY is the title, DESCRIPTION the description, DTSTART the date and time,
+ * DTEND or DURATION the duration, and the first CATEGORIES value the category if it is one of the categories
+ * of the app. Times in UTC or in a named time zone are converted to the local time zone.
+ * An RRULE with a daily, weekly, monthly or yearly frequency makes a repeating task with its INTERVAL, UNTIL,
+ * COUNT and EXDATE values, the BYDAY and other BY parts are not supported and are left out.
+ * A changed occurrence of a repeating event, which has a RECURRENCE-ID, is read as a task of its own day.
+ * Events which cannot be read are skipped and counted.
+ */
+public class IcsReader implements Iterator<Task> {
+    private final BufferedReader reader;
+    // The next physical line, read ahead to unfold the lines which continue on the next one
+    private String lookahead;
+    private Task next;
+    private int skipped;
+
+    /**
+     * Class constructor.
+     *
+     * @param reader The contents of the file
+     */
+    public IcsReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * getSkipped - Get the number of events skipped so far as they could not be read
+     */
+    public int getSkipped() {
+        return skipped;
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            while (next == null) {
+                String line = readLine();
+                if (line == null) {
+                    return false;
+                }
+                if (line.equalsIgnoreCase("BEGIN:VEVENT")) {
+                    next = readEvent();
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Task next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Task t = next;
+        next = null;
+        return t;
+    }
+
+    /**
+     * readEvent - Read the properties of an event up to its END:VEVENT and create its task
+     *
+     * @return The task, or null if the event is skipped
+     * @throws IOException If the file cannot be read
+     */
+    private Task readEvent() throws IOException {
+        Map<String, String> properties = new HashMap<>();
+        Map<String, String> parameters = new HashMap<>();
+        StringBuilder exceptions = new StringBuilder();
+        // Components inside the event, such as alarms, have properties of their own which are left out
+        int depth = 0;
+        String line;
+        while ((line = readLine()) != null) {
+            if (line.regionMatches(true, 0, "BEGIN:", 0, 6)) {
+                depth++;
+                continue;
+            }
+            if (line.regionMatches(true, 0, "END:", 0, 4)) {
+                if (depth == 0) {
+                    break;
+                }
+                depth--;
+                continue;
+            }
+            if (depth > 0) {
+                continue;
+            }
+            int colon = valueStart(line);
+            if (colon < 0) {
+                continue;
+            }
+            int semicolon = line.indexOf(';');
+            int nameEnd = semicolon >= 0 && semicolon < colon ? semicolon : colon;
+            String name = line.substring(0, nameEnd).toUpperCase();
+            String value = line.substring(colon + 1);
+            if (name.equals("EXDATE")) {
+                // An event can have several EXDATE lines, each with several dates
+                exceptions.append(exceptions.length() == 0 ? "" : ",").append(value);
+                parameters.put(name, line.substring(nameEnd, colon));
+            } else if (!properties.containsKey(name)) {
+                properties.put(name, value);
+                parameters.put(name, line.substring(nameEnd, colon));
+            }
+        }
+        try {
+            return createTask(properties, parameters, exceptions.toString());
+        } catch (RuntimeException e) {
+            skipped++;
+            return null;
+        }
+    }
+
+    /**
+     * createTask - Create the task of an event from its properties
+     */
+    private Task createTask(Map<String, String> properties, Map<String, String> parameters, String exceptions) {
+        String dtStart = properties.get("DTSTART");
+        if (dtStart == null) {
+            throw new IllegalArgumentException("The event has no DTSTART");
+        }
+        boolean allDay = isDate(dtStart, parameters.get("DTSTART"));
+        LocalDateTime start = parseDateTime(dtStart, parameters.get("DTSTART"));
+
+        Task t = new Task();
+        String title = unescape(properties.get("SUMMARY"));
+        t.setTitle(title == null || title.trim().isEmpty() ? "(No title)" : title);
+        t.setDescription(unescape(properties.get("DESCRIPTION")));
+        t.setCategory(category(unescape(properties.get("CATEGORIES"))));
+        t.setDateTime(start.truncatedTo(ChronoUnit.MINUTES));
+
+        if (!allDay) {
+            long minutes = 0;
+            if (properties.containsKey("DTEND")) {
+                minutes = ChronoUnit.MINUTES.between(start, parseDateTime(properties.get("DTEND"), parameters.get("DTEND")));
+            } else if (properties.containsKey("DURATION")) {
+                minutes = parseDuration(properties.get("DURATION")).toMinutes();
+            }
+            t.setDuration((int) Math.max(0, Math.min(24 * 60, minutes)));
+        }
+
+        String rule = properties.get("RRULE");
+        if (rule != null) {
+            t.setRecurrence(parseRule(rule, start.toLocalDate(), exceptions, parameters.get("EXDATE")));
+        }
+
+        String uid = properties.get("UID");
+        if (uid == null || uid.isEmpty()) {
+            // Made from the event itself, so importing the file again matches the same task
+            uid = "generated-" + dtStart + "-" + Integer.toHexString(t.getTitle().hashCode());
+        }
+        String recurrenceID = properties.get("RECURRENCE-ID");
+        if (recurrenceID != null) {
+            // A changed occurrence shares the UID of its repeating event
+            uid += ";RECURRENCE-ID=" + recurrenceID;
+        }
+        t.setUid(uid);
+        return t;
+    }
+
+    /**
+     * parseRule - Read an RRULE into the rule of a repeating task
+     *
+     * @return The rule, or null if the frequency is not supported
+     */
+    private static Recurrence parseRule(String rule, LocalDate start, String exceptions, String exceptionParameters) {
+        Recurrence.Frequency frequency = null;
+        int interval = 1;
+        LocalDate until = null;
+        int count = 0;
+        for (String part : rule.split(";")) {
+            String[] keyValue = part.split("=", 2);
+            if (keyValue.length < 2) {
+                continue;
+            }
+            switch (keyValue[0].toUpperCase()) {
+                case "FREQ":
+                    try {
+                        frequency = Recurrence.Frequency.valueOf(keyValue[1].toUpperCase());
+                    } catch (IllegalArgumentException e) {
+                        // Hourly and shorter frequencies are imported as a single task
+                        return null;
+                    }
+                    break;
+                case "INTERVAL":
+                    interval = Integer.parseInt(keyValue[1]);
+                    break;
+                case "UNTIL":
+                    until = parseDateTime(keyValue[1], "").toLocalDate();
+                    break;
+                case "COUNT":
+                    count = Integer.parseInt(keyValue[1]);
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (frequency == null) {
+            return null;
+        }
+        SortedSet<LocalDate> exceptionDates = new TreeSet<>();
+        for (String exception : exceptions.split(",")) {
+            if (!exception.isEmpty()) {
+                exceptionDates.add(parseDateTime(exception, exceptionParameters).toLocalDate());
+            }
+        }
+        return new Recurrence(frequency, interval, start, until, count, exceptionDates);
+    }
+
+    /**
+     * parseDateTime - Read a DATE or DATE-TIME value as a local date and time, a date is read as its midnight
+     *
+     * @param value      The value, yyyyMMdd or yyyyMMddTHHmmss with an optional Z for UTC
+     * @param parameters The parameters of the property, which may name a TZID
+     */
+    private static LocalDateTime parseDateTime(String value, String parameters) {
+        value = value.trim();
+        LocalDate date = LocalDate.of(Integer.parseInt(value.substring(0, 4)), Integer.parseInt(value.substring(4, 6)), Integer.parseInt(value.substring(6, 8)));
+        if (value.length() < 15) {
+            return date.atStartOfDay();
+        }
+        LocalDateTime dateTime = date.atTime(Integer.parseInt(value.substring(9, 11)), Integer.parseInt(value.substring(11, 13)), Integer.parseInt(value.substring(13, 15)));
+        if (value.endsWith("Z") || value.endsWith("z")) {
+            return dateTime.atOffset(ZoneOffset.UTC).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+        }
+        String tzid = parameter(parameters, "TZID");
+        if (tzid != null) {
+            try {
+                return dateTime.atZone(ZoneId.of(tzid)).withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+            } catch (DateTimeException e) {
+                // Time zones which are not known by their ID, such as Windows names, are read as local time
+            }
+        }
+        return dateTime;
+    }
+
+    /**
+     * isDate - Check if a DTSTART is a date without a time, which makes an all day event
+     */
+    private static boolean isDate(String value, String parameters) {
+        return "DATE".equalsIgnoreCase(parameter(parameters, "VALUE")) || value.trim().length() == 8;
+    }
+
+    /**
+     * parseDuration - Read a DURATION value such as PT1H30M, P1D or P2W
+     */
+    private static Duration parseDuration(String value) {
+        value = value.trim().toUpperCase();
+        boolean negative = value.startsWith("-");
+        if (negative || value.startsWith("+")) {
+            value = value.substring(1);
+        }
+        Duration duration;
+        if (value.endsWith("W")) {
+            duration = Duration.ofDays(7L * Long.parseLong(value.substring(1, value.length() - 1)));
+        } else {
+            duration = Duration.parse(value);
+        }
+        return negative ? duration.negated() : duration;
+    }
+
+    /**
+     * parameter - Get a parameter such as TZID from the text between a property name and its value
+     *
+     * @param parameters The parameters, like ;TZID=Europe/London;VALUE=DATE-TIME, or null
+     * @param name       The parameter name
+     * @return The parameter value without quotes, or null
+     */
+    private static String parameter(String parameters, String name) {
+        if (parameters == null) {
+            return null;
+        }
+        for (String parameter : parameters.split(";")) {
+            int equals = parameter.indexOf('=');
+            if (equals > 0 && parameter.substring(0, equals).equalsIgnoreCase(name)) {
+                String value = parameter.substring(equals + 1);
+                return value.startsWith("\"") && value.endsWith("\"") && value.length() > 1 ? value.substring(1, value.length() - 1) : value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * category - Get the category of the app which the first CATEGORIES value names, General for any other value
+     */
+    private static String category(String categories) {
+        if (categories != null) {
+            String first = categories.split(",")[0].trim();
+            for (String category : TaskEditor.categories) {
+                if (category.equalsIgnoreCase(first)) {
+                    return category;
+                }
+            }
+        }
+        return "General";
+    }
+
+    /**
+     * unescape - Turn the escaped characters of a TEXT value back into the characters
+     *
+     * @param text The escaped text, or null
+     * @return The text, or null
+     */
+    private static String unescape(String text) {
+        if (text == null || text.indexOf('\\') < 0) {
+            return text;
+        }
+        StringBuilder unescaped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < text.length()) {
+                char escaped = text.charAt(++i);
+                unescaped.append(escaped == 'n' || escaped == 'N' ? '\n' : escaped);
+            } else {
+                unescaped.append(c);
+            }
+        }
+        return unescaped.toString();
+    }
+
+    /**
+     * valueStart - Find the colon which ends the name and parameters of a line, colons in quoted parameters are skipped
+     *
+     * @return The index of the colon, or -1
+     */
+    private static int valueStart(String line) {
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ':' && !quoted) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * readLine - Read a logical line, joining the physical lines which start with a space or a tab to the line before
+     *
+     * @return The line, or null at the end of the file
+     * @throws IOException If the file cannot be read
+     */
+    private String readLine() throws IOException {
+        String line = lookahead != null ? lookahead : reader.readLine();
+        lookahead = null;
+        if (line == null) {
+            return null;
+        }
+        String following = reader.readLine();
+        if (following == null || following.isEmpty() || (following.charAt(0) != ' ' && following.charAt(0) != '\t')) {
+            lookahead = following;
+            return line;
+        }
+        StringBuilder unfolded = new StringBuilder(line);
+        while (following != null && !following.isEmpty() && (following.charAt(0) == ' ' || following.charAt(0) == '\t')) {
+            unfolded.append(following, 1, following.length());
+            following = reader.readLine();
+        }
+        lookahead = following;
+        return unfolded.toString();
+    }
+}
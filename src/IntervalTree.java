@@ -0,0 +1,132 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * @author Audreen Soh
+ * <p>
+ * This class implements an interval tree of the tasks of one day, used to find the tasks which overlap a time range.
+ * Each task takes the minutes from its start time to its start time plus its duration, see Task.getEndMinute.
+ * <p>
+ * The tasks are sorted by start time once, and the sorted array is used as a balanced binary search tree:
+ * the middle task of a range is the root of that range, and the two halves are its subtrees.
+ * Each node keeps the latest end of its subtree, so a subtree which ends before the range is skipped,
+ * and a query takes O(log n + k) for k overlapping tasks instead of checking every task of the day.
+ * The tree is not changed after it is built, it is built again when the tasks of the day change.
+ */
+public class IntervalTree {
+    private final Task[] tasks;
+    private final int[] starts;
+    private final int[] ends;
+    // Latest end of the subtree rooted at each index
+    private final int[] maxEnds;
+
+    /**
+     * Class constructor.
+     *
+     * @param tasks The tasks of the day, in any order
+     */
+    public IntervalTree(List<Task> tasks) {
+        this.tasks = tasks.toArray(new Task[0]);
+        Arrays.sort(this.tasks, Comparator.comparingInt(Task::getStartMinute));
+        int n = this.tasks.length;
+        starts = new int[n];
+        ends = new int[n];
+        maxEnds = new int[n];
+        for (int i = 0; i < n; i++) {
+            starts[i] = this.tasks[i].getStartMinute();
+            ends[i] = this.tasks[i].getEndMinute();
+        }
+        computeMaxEnds(0, n);
+    }
+
+    /**
+     * size - Get the number of tasks in the tree
+     */
+    public int size() {
+        return tasks.length;
+    }
+
+    /**
+     * overlapping - Find the tasks which overlap a time range, a task which ends when the range starts does not overlap it
+     *
+     * @param start     The start of the range in minutes since midnight
+     * @param end       The end of the range in minutes since midnight, exclusive
+     * @param excludeID The ID of a task to leave out, such as the task being edited, or 0
+     * @return The overlapping tasks in start time order
+     */
+    public List<Task> overlapping(int start, int end, int excludeID) {
+        List<Task> found = new ArrayList<>();
+        collect(0, tasks.length, start, end, excludeID, found, Integer.MAX_VALUE);
+        return found;
+    }
+
+    /**
+     * overlapping - Find the tasks which overlap a task
+     *
+     * @param t The task, which is left out of the result if it is in the tree
+     * @return The overlapping tasks in start time order
+     */
+    public List<Task> overlapping(Task t) {
+        return overlapping(t.getStartMinute(), t.getEndMinute(), t.getID());
+    }
+
+    /**
+     * overlappingIDs - Find every task of the tree which overlaps another task of the tree.
+     * Each task stops searching at its first overlap, so this takes O(n log n) however many tasks overlap.
+     *
+     * @return A list of the IDs of the overlapping tasks
+     */
+    public List<Integer> overlappingIDs() {
+        List<Integer> IDs = new ArrayList<>();
+        List<Task> found = new ArrayList<>(2);
+        for (int i = 0; i < tasks.length; i++) {
+            found.clear();
+            // The task finds itself, a second match is another task
+            collect(0, tasks.length, starts[i], ends[i], 0, found, 2);
+            if (found.size() > 1) {
+                IDs.add(tasks[i].getID());
+            }
+        }
+        return IDs;
+    }
+
+    /**
+     * computeMaxEnds - Work out the latest end of the subtree of the range [low, high)
+     *
+     * @return The latest end, or -1 for an empty range
+     */
+    private int computeMaxEnds(int low, int high) {
+        if (low >= high) {
+            return -1;
+        }
+        int middle = (low + high) >>> 1;
+        int maxEnd = Math.max(ends[middle], Math.max(computeMaxEnds(low, middle), computeMaxEnds(middle + 1, high)));
+        maxEnds[middle] = maxEnd;
+        return maxEnd;
+    }
+
+    /**
+     * collect - Add the tasks of the subtree of the range [low, high) which overlap [start, end), up to a limit
+     */
+    private void collect(int low, int high, int start, int end, int excludeID, List<Task> found, int limit) {
+        if (low >= high || found.size() >= limit) {
+            return;
+        }
+        int middle = (low + high) >>> 1;
+        // Every task of this subtree ends before the range starts
+        if (maxEnds[middle] <= start) {
+            return;
+        }
+        collect(low, middle, start, end, excludeID, found, limit);
+        // The tasks from here on start after the range ends
+        if (starts[middle] >= end || found.size() >= limit) {
+            return;
+        }
+        if (ends[middle] > start && (excludeID == 0 || tasks[middle].getID() != excludeID)) {
+            found.add(tasks[middle]);
+        }
+        collect(middle + 1, high, start, end, excludeID, found, limit);
+    }
+}
@@ -0,0 +1,237 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.zip.CRC32;
+
+/**
+ * @author Audreen Soh
+ * <p>
+ * This class implements the write-ahead journal of the database.
+ * Every change is appended to the journal file as a statement and its parameters,
+ * so the changes made since the last snapshot can be replayed on start up.
+ * Journaled statements have to be idempotent (MERGE, UPDATE or DELETE by key),
+ * replaying a journal over a snapshot which already contains some of its changes gives the same data.
+ */
+public class Journal {
+    // Parameter type tags
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INT = 2;
+    private static final byte LONG = 3;
+    private static final byte BOOLEAN = 4;
+    private static final byte DATE = 5;
+    private static final byte TIME = 6;
+
+    private final File file;
+    private FileOutputStream out;
+    private int size;
+
+    /**
+     * Class constructor.
+     *
+     * @param file The journal file
+     */
+    public Journal(File file) {
+        this.file = file;
+    }
+
+    /**
+     * replay - Execute the statements of an existing journal file, and open the journal for appending.
+     * A record which was only partly written when the application stopped is dropped from the file.
+     *
+     * @param connection The database connection to replay the statements on
+     * @return The number of statements replayed
+     * @throws IOException  If the journal file cannot be read
+     * @throws SQLException If a statement fails
+     */
+    public int replay(Connection connection) throws IOException, SQLException {
+        long validLength = 0;
+        size = 0;
+        if (file.isFile()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                while (true) {
+                    byte[] record;
+                    try {
+                        int length = in.readInt();
+                        long checksum = in.readLong();
+                        if (length < 0 || length > file.length()) {
+                            break;
+                        }
+                        record = new byte[length];
+                        in.readFully(record);
+                        if (checksum(record) != checksum) {
+                            break;
+                        }
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    execute(connection, record);
+                    validLength += 12 + record.length;
+                    size++;
+                }
+            }
+            // Cut off the broken tail so new records follow the last complete one
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(validLength);
+            }
+        }
+        out = new FileOutputStream(file, true);
+        return size;
+    }
+
+    /**
+     * append - Write a statement and its parameters to the end of the journal.
+     * The record is handed to the operating system before this returns, so it survives the process being killed.
+     *
+     * @param sql    The statement with ? placeholders for the parameters
+     * @param params The parameter values
+     * @throws IOException If the journal cannot be written
+     */
+    public void append(String sql, Object... params) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream record = new DataOutputStream(bytes);
+        writeString(record, sql);
+        record.writeShort(params.length);
+        for (Object param : params) {
+            writeParam(record, param);
+        }
+        byte[] payload = bytes.toByteArray();
+
+        ByteArrayOutputStream entry = new ByteArrayOutputStream(12 + payload.length);
+        DataOutputStream header = new DataOutputStream(entry);
+        header.writeInt(payload.length);
+        header.writeLong(checksum(payload));
+        header.write(payload);
+        out.write(entry.toByteArray());
+        out.flush();
+        size++;
+    }
+
+    /**
+     * size - Get the number of records in the journal
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * reset - Empty the journal once its changes are written to a snapshot.
+     *
+     * @throws IOException If the journal cannot be truncated
+     */
+    public void reset() throws IOException {
+        out.getChannel().truncate(0);
+        size = 0;
+    }
+
+    /**
+     * close - Close the journal file
+     */
+    public void close() {
+        try {
+            if (out != null) {
+                out.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * execute - Run one journal record against the database
+     *
+     * @param connection The database connection
+     * @param record     The record payload
+     * @throws IOException  If the record cannot be decoded
+     * @throws SQLException If the statement fails
+     */
+    private void execute(Connection connection, byte[] record) throws IOException, SQLException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        try (PreparedStatement ps = connection.prepareStatement(readString(in))) {
+            int count = in.readShort();
+            for (int i = 1; i <= count; i++) {
+                ps.setObject(i, readParam(in));
+            }
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * checksum - Calculate the CRC32 checksum of a record, used to detect a partly written record
+     */
+    private static long checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        return crc.getValue();
+    }
+
+    /**
+     * writeString/readString - Length prefixed UTF-8 strings, which unlike writeUTF are not limited to 64KB
+     */
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * writeParam/readParam - Type tagged statement parameters
+     */
+    private static void writeParam(DataOutputStream out, Object param) throws IOException {
+        if (param == null) {
+            out.writeByte(NULL);
+        } else if (param instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, (String) param);
+        } else if (param instanceof Integer) {
+            out.writeByte(INT);
+            out.writeInt((Integer) param);
+        } else if (param instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) param);
+        } else if (param instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) param);
+        } else if (param instanceof LocalDate) {
+            out.writeByte(DATE);
+            out.writeLong(((LocalDate) param).toEpochDay());
+        } else if (param instanceof LocalTime) {
+            out.writeByte(TIME);
+            out.writeInt(((LocalTime) param).toSecondOfDay());
+        } else {
+            throw new IllegalArgumentException("Unsupported journal parameter " + param.getClass());
+        }
+    }
+
+    private static Object readParam(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case INT:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case BOOLEAN:
+                return in.readBoolean();
+            case DATE:
+                return LocalDate.ofEpochDay(in.readLong());
+            case TIME:
+                return LocalTime.ofSecondOfDay(in.readInt());
+            default:
+                throw new IOException("Unknown journal parameter type " + type);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Audreen Soh
+ * <p>
+ * This class collects the run time metrics of the application: a call counter, an error counter and
+ * a latency histogram for every timed operation, such as the database calls, the snapshot load and save,
+ * the page builds and the event dispatch thread callbacks.
+ * The metrics are published over JMX as CalendarScheduler:type=Metrics, and written to the console every
+ * few seconds when the application is started with -Dcalendar.metrics.log=seconds.
+ * <p>
+ * An operation is timed like this:
+ * <pre>
+ *     long start = System.nanoTime();
+ *     ...
+ *     Metrics.record("Database.getTasks", start);
+ * </pre>
+ */
+public final class Metrics {
+    private static final String objectName = "CalendarScheduler:type=Metrics";
+    // System property with the number of seconds between the metrics log lines
+    private static final String logProperty = "calendar.metrics.log";
+
+    // Operations by name
+    private static final Map<String, Operation> operations = new ConcurrentHashMap<>();
+    // Database whose task cache and pending calls are published
+    private static volatile Database database;
+    private static ScheduledExecutorService logger;
+
+    private Metrics() {
+    }
+
+    /**
+     * record - Record a call of an operation which started at a System.nanoTime() value and has just finished
+     *
+     * @param operation The operation name
+     * @param start     The System.nanoTime() value when the call started
+     */
+    public static void record(String operation, long start) {
+        operation(operation).record(System.nanoTime() - start);
+    }
+
+    /**
+     * error - Count a failed call of an operation
+     *
+     * @param operation The operation name
+     */
+    public static void error(String operation) {
+        operation(operation).errors.increment();
+    }
+
+    /**
+     * register - Publish the metrics of a database over JMX and start the periodic log if it is enabled.
+     * A database registered later replaces the earlier one.
+     *
+     * @param db The database
+     */
+    public static synchronized void register(Database db) {
+        database = db;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(objectName);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MetricsBean(), name);
+            }
+        } catch (InstanceAlreadyExistsException e) {
+            // Registered by another thread in the meantime
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+
+        Long seconds = Long.getLong(logProperty);
+        if (seconds != null && seconds > 0 && logger == null) {
+            logger = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "metrics-log");
+                thread.setDaemon(true);
+                return thread;
+            });
+            logger.scheduleAtFixedRate(() -> System.out.println(summary()), seconds, seconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * summary - Get one line with the call count, mean and 99th percentile latency of every operation
+     *
+     * @return The summary line
+     */
+    public static String summary() {
+        StringBuilder line = new StringBuilder("metrics");
+        Database db = database;
+        if (db != null) {
+            line.append(" cache=").append(db.getTaskCache().getHits()).append('/').append(db.getTaskCache().getMisses())
+                    .append(" pending=").append(db.async().getPending());
+        }
+        for (Map.Entry<String, OperationStats> entry : stats().entrySet()) {
+            OperationStats stats = entry.getValue();
+            line.append(' ').append(entry.getKey()).append("[n=").append(stats.getCount());
+            if (stats.getErrors() > 0) {
+                line.append(" err=").append(stats.getErrors());
+            }
+            line.append(" mean=").append(stats.getMeanMicros()).append("us p99=").append(stats.getP99Micros()).append("us]");
+        }
+        return line.toString();
+    }
+
+    /**
+     * stats - Get the statistics of every operation, sorted by name
+     */
+    private static Map<String, OperationStats> stats() {
+        Map<String, OperationStats> stats = new TreeMap<>();
+        for (Map.Entry<String, Operation> entry : operations.entrySet()) {
+            stats.put(entry.getKey(), entry.getValue().stats());
+        }
+        return stats;
+    }
+
+    private static Operation operation(String name) {
+        return operations.computeIfAbsent(name, n -> new Operation());
+    }
+
+    /**
+     * The counters and latency histogram of one operation.
+     * Bucket n of the histogram counts the calls which took less than 2^n nanoseconds and at least 2^(n-1).
+     */
+    private static class Operation {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLongArray buckets = new AtomicLongArray(64);
+
+        private void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(Math.max(nanos, 0)) & 63);
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+        }
+
+        /**
+         * percentileMicros - Estimate a percentile from the histogram, as the upper bound of its bucket
+         */
+        private long percentileMicros(long total, double percentile) {
+            long rank = (long) Math.ceil(total * percentile);
+            long seen = 0;
+            for (int i = 0; i < 64; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank && seen > 0) {
+                    return Math.min((1L << i), maxNanos.get()) / 1000;
+                }
+            }
+            return 0;
+        }
+
+        private OperationStats stats() {
+            long n = count.sum();
+            return new OperationStats(n, errors.sum(), totalNanos.sum() / 1000000, n == 0 ? 0 : totalNanos.sum() / n / 1000,
+                    percentileMicros(n, 0.5), percentileMicros(n, 0.99), maxNanos.get() / 1000);
+        }
+    }
+
+    /**
+     * The statistics of an operation, published over JMX as composite data.
+     */
+    public static class OperationStats {
+        private final long count;
+        private final long errors;
+        private final long totalMillis;
+        private final long meanMicros;
+        private final long p50Micros;
+        private final long p99Micros;
+        private final long maxMicros;
+
+        public OperationStats(long count, long errors, long totalMillis, long meanMicros, long p50Micros, long p99Micros, long maxMicros) {
+            this.count = count;
+            this.errors = errors;
+            this.totalMillis = totalMillis;
+            this.meanMicros = meanMicros;
+            this.p50Micros = p50Micros;
+            this.p99Micros = p99Micros;
+            this.maxMicros = maxMicros;
+        }
+
+        /**
+         * Getters
+         */
+        public long getCount() {
+            return count;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public long getTotalMillis() {
+            return totalMillis;
+        }
+
+        public long getMeanMicros() {
+            return meanMicros;
+        }
+
+        public long getP50Micros() {
+            return p50Micros;
+        }
+
+        public long getP99Micros() {
+            return p99Micros;
+        }
+
+        public long getMaxMicros() {
+            return maxMicros;
+        }
+    }
+
+    /**
+     * The JMX view of the metrics
+     */
+    private static class MetricsBean implements MetricsMXBean {
+        @Override
+        public Map<String, OperationStats> getOperations() {
+            return stats();
+        }
+
+        @Override
+        public long getTaskCacheHits() {
+            Database db = database;
+            return db == null ? 0 : db.getTaskCache().getHits();
+        }
+
+        @Override
+        public long getTaskCacheMisses() {
+            Database db = database;
+            return db == null ? 0 : db.getTaskCache().getMisses();
+        }
+
+        @Override
+        public int getPendingCalls() {
+            Database db = database;
+            return db == null ? 0 : db.async().getPending();
+        }
+
+        @Override
+        public String getSummary() {
+            return summary();
+        }
+
+        @Override
+        public void reset() {
+            operations.clear();
+        }
+    }
+}
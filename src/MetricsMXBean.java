@@ -0,0 +1,34 @@
+import java.util.Map;
+
+/**
+ * @author Audreen Soh
+ * <p>
+ * Management interface of the application metrics, registered as CalendarScheduler:type=Metrics.
+ * It can be read with JConsole, VisualVM or any other JMX client while the application runs.
+ */
+public interface MetricsMXBean {
+
+    /**
+     * getOperations - Get the statistics of every timed operation, keyed by the operation name
+     */
+    Map<String, Metrics.OperationStats> getOperations();
+
+    long getTaskCacheHits();
+
+    long getTaskCacheMisses();
+
+    /**
+     * getPendingCalls - Get the number of database calls of the UI which have not completed yet
+     */
+    int getPendingCalls();
+
+    /**
+     * getSummary - Get the one line summary which is also written by the periodic log
+     */
+    String getSummary();
+
+    /**
+     * reset - Clear the statistics of all the operations
+     */
+    void reset();
+}
@@ -0,0 +1,91 @@
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.HierarchyEvent;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author Audreen Soh
+ * <p>
+ * This class saves the notes of a day while they are typed.
+ * Every change of the text restarts a short timer, and the notes are saved once the typing pauses,
+ * when the text area loses the focus, or when the page is closed. Notes which did not change are not saved again.
+ * Saves which pile up behind a slow write are coalesced, the writer thread only saves the latest text.
+ */
+public class NotesAutosave implements DocumentListener {
+    // Milliseconds of no typing before the notes are saved
+    private static final int delay = 1000;
+
+    private final Database database;
+    private final LocalDate date;
+    private final JTextArea textArea;
+    private final Timer timer;
+    // The text saved last, or loaded from the database
+    private String savedText;
+    // The text waiting for the writer thread, null if no save is queued
+    private final AtomicReference<String> pendingText = new AtomicReference<>();
+
+    /**
+     * Class constructor.
+     *
+     * @param database  The database object
+     * @param date      The date of the notes
+     * @param textArea  The text area of the notes, already showing the loaded notes
+     * @param savedText The notes loaded from the database
+     */
+    public NotesAutosave(Database database, LocalDate date, JTextArea textArea, String savedText) {
+        this.database = database;
+        this.date = date;
+        this.textArea = textArea;
+        this.savedText = savedText;
+        timer = new Timer(delay, e -> save());
+        timer.setRepeats(false);
+
+        textArea.getDocument().addDocumentListener(this);
+        textArea.addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                save();
+            }
+        });
+        // The page is closed, save what the timer has not saved yet
+        textArea.addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.DISPLAYABILITY_CHANGED) != 0 && !textArea.isDisplayable()) {
+                save();
+            }
+        });
+    }
+
+    @Override
+    public void insertUpdate(DocumentEvent e) {
+        timer.restart();
+    }
+
+    @Override
+    public void removeUpdate(DocumentEvent e) {
+        timer.restart();
+    }
+
+    @Override
+    public void changedUpdate(DocumentEvent e) {
+    }
+
+    /**
+     * save - Queue the notes on the writer thread if they changed since they were last saved
+     */
+    public void save() {
+        timer.stop();
+        String text = textArea.getText();
+        if (text.equals(savedText)) {
+            return;
+        }
+        savedText = text;
+        // A save which is still queued picks up this text instead of queuing another one
+        if (pendingText.getAndSet(text) == null) {
+            database.async().write(() -> database.saveNotes(date, pendingText.getAndSet(null)));
+        }
+    }
+}
@@ -0,0 +1,235 @@
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * @author Audreen Soh
+ * <p>
+ * This class implements the rule of a repeating task: the task repeats every interval days, weeks, months or years
+ * from its start date, until an end date or for a number of times, except on the days it was removed from.
+ * A repeating task is stored once with its rule, and its days are worked out only for the dates which are shown.
+ * The rule is stored as a string like FREQ=WEEKLY;INTERVAL=2;UNTIL=2024-12-31;COUNT=10;EXDATE=2024-03-05,2024-03-19
+ * <p>
+ * A rule is immutable, the methods which change it return a new rule.
+ */
+public class Recurrence {
+
+    /**
+     * How often a task repeats.
+     */
+    public enum Frequency {
+        DAILY(ChronoUnit.DAYS), WEEKLY(ChronoUnit.WEEKS), MONTHLY(ChronoUnit.MONTHS), YEARLY(ChronoUnit.YEARS);
+
+        private final ChronoUnit unit;
+
+        Frequency(ChronoUnit unit) {
+            this.unit = unit;
+        }
+    }
+
+    private final Frequency frequency;
+    private final int interval;
+    private final LocalDate start;
+    // Last day the task can repeat on, or null
+    private final LocalDate until;
+    // Number of times the task repeats, or 0 for no limit
+    private final int count;
+    // Days the task was removed from
+    private final SortedSet<LocalDate> exceptions;
+
+    /**
+     * Class constructor.
+     *
+     * @param frequency  How often the task repeats
+     * @param interval   The number of days, weeks, months or years between the days of the task
+     * @param start      The first day of the task
+     * @param until      The last day the task can repeat on, or null
+     * @param count      The number of times the task repeats, or 0 for no limit
+     * @param exceptions The days the task was removed from
+     */
+    public Recurrence(Frequency frequency, int interval, LocalDate start, LocalDate until, int count, SortedSet<LocalDate> exceptions) {
+        if (interval < 1 || count < 0) {
+            throw new IllegalArgumentException("The interval has to be at least 1 and the count cannot be negative");
+        }
+        this.frequency = frequency;
+        this.interval = interval;
+        this.start = start;
+        this.until = until;
+        this.count = count;
+        this.exceptions = Collections.unmodifiableSortedSet(new TreeSet<>(exceptions));
+    }
+
+    /**
+     * parse - Read a rule stored by toString
+     *
+     * @param rule  The rule string
+     * @param start The first day of the task
+     * @return The rule
+     * @throws IllegalArgumentException If the rule cannot be read
+     */
+    public static Recurrence parse(String rule, LocalDate start) {
+        Frequency frequency = null;
+        int interval = 1;
+        LocalDate until = null;
+        int count = 0;
+        SortedSet<LocalDate> exceptions = new TreeSet<>();
+        for (String part : rule.split(";")) {
+            String[] keyValue = part.split("=", 2);
+            if (keyValue.length < 2) {
+                continue;
+            }
+            String value = keyValue[1];
+            switch (keyValue[0]) {
+                case "FREQ":
+                    frequency = Frequency.valueOf(value);
+                    break;
+                case "INTERVAL":
+                    interval = Integer.parseInt(value);
+                    break;
+                case "UNTIL":
+                    until = LocalDate.parse(value);
+                    break;
+                case "COUNT":
+                    count = Integer.parseInt(value);
+                    break;
+                case "EXDATE":
+                    for (String date : value.split(",")) {
+                        if (!date.isEmpty()) {
+                            exceptions.add(LocalDate.parse(date));
+                        }
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (frequency == null) {
+            throw new IllegalArgumentException("No FREQ in the rule " + rule);
+        }
+        return new Recurrence(frequency, interval, start, until, count, exceptions);
+    }
+
+    /**
+     * toString - Get the rule string which is stored in the database
+     */
+    @Override
+    public String toString() {
+        StringBuilder rule = new StringBuilder("FREQ=").append(frequency.name());
+        if (interval != 1) {
+            rule.append(";INTERVAL=").append(interval);
+        }
+        if (until != null) {
+            rule.append(";UNTIL=").append(until);
+        }
+        if (count > 0) {
+            rule.append(";COUNT=").append(count);
+        }
+        if (!exceptions.isEmpty()) {
+            rule.append(";EXDATE=");
+            boolean first = true;
+            for (LocalDate exception : exceptions) {
+                rule.append(first ? "" : ",").append(exception);
+                first = false;
+            }
+        }
+        return rule.toString();
+    }
+
+    /**
+     * occurrences - Get the days of the task in a date range.
+     * The first day is worked out directly from the start, so the cost only depends on the number of days returned.
+     *
+     * @param from The first date of the range
+     * @param to   The last date of the range, inclusive
+     * @return The days of the task in the range, in order
+     */
+    public List<LocalDate> occurrences(LocalDate from, LocalDate to) {
+        List<LocalDate> days = new ArrayList<>();
+        LocalDate last = to;
+        if (until != null && until.isBefore(last)) {
+            last = until;
+        }
+        if (from.isAfter(last) || start.isAfter(last)) {
+            return days;
+        }
+        long n = 0;
+        if (from.isAfter(start)) {
+            // Months and years can be shorter than the start day, step forward from an estimate which is never too far
+            n = Math.max(0, frequency.unit.between(start, from) / interval);
+            while (occurrence(n).isBefore(from)) {
+                n++;
+            }
+        }
+        for (; count == 0 || n < count; n++) {
+            LocalDate day = occurrence(n);
+            if (day.isAfter(last)) {
+                break;
+            }
+            if (!exceptions.contains(day)) {
+                days.add(day);
+            }
+        }
+        return days;
+    }
+
+    /**
+     * occursOn - Check if the task is on a day
+     *
+     * @param date The day
+     * @return true if the day is one of the days of the task
+     */
+    public boolean occursOn(LocalDate date) {
+        return !occurrences(date, date).isEmpty();
+    }
+
+    /**
+     * occurrence - Get the nth day of the task, counted from 0.
+     * A monthly or yearly task which starts on a day a month does not have, such as the 31st, is on the last day of those months.
+     */
+    private LocalDate occurrence(long n) {
+        return start.plus(n * interval, frequency.unit);
+    }
+
+    /**
+     * withException - Get the rule with a day removed from the task
+     *
+     * @param date The day to remove
+     * @return The new rule
+     */
+    public Recurrence withException(LocalDate date) {
+        SortedSet<LocalDate> newExceptions = new TreeSet<>(exceptions);
+        newExceptions.add(date);
+        return new Recurrence(frequency, interval, start, until, count, newExceptions);
+    }
+
+    /**
+     * Getters
+     */
+    public Frequency getFrequency() {
+        return frequency;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public LocalDate getStart() {
+        return start;
+    }
+
+    public LocalDate getUntil() {
+        return until;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public SortedSet<LocalDate> getExceptions() {
+        return exceptions;
+    }
+}
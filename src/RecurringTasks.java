@@ -0,0 +1,194 @@
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * @author Audreen Soh
+ * <p>
+ * This class works out the days of the repeating tasks.
+ * The repeating tasks are read from the database once, and their days are worked out one month at a time,
+ * only for the months which are shown or read. The days of the recently used months are cached,
+ * so showing a month costs the same as for the tasks which do not repeat.
+ * The cache is emptied whenever a repeating task is created, changed or deleted.
+ */
+public class RecurringTasks {
+    // Number of months of days to keep
+    private static final int maxMonths = 24;
+    private static final Comparator<Task> byTime = Comparator.comparing(Task::getDateTime);
+
+    private final Supplier<List<Task>> loader;
+    // The repeating tasks, null until they are read
+    private List<Task> rules;
+    private final Set<Integer> ruleIDs = new HashSet<>();
+    // The tasks of each day of the recently used months, in time order
+    private final LinkedHashMap<YearMonth, Map<LocalDate, List<Task>>> months = new LinkedHashMap<YearMonth, Map<LocalDate, List<Task>>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<YearMonth, Map<LocalDate, List<Task>>> eldest) {
+            return size() > maxMonths;
+        }
+    };
+
+    /**
+     * Class constructor.
+     *
+     * @param loader Reads the repeating tasks from the database
+     */
+    public RecurringTasks(Supplier<List<Task>> loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * invalidate - Forget the repeating tasks and their days, they are read again when they are next needed
+     */
+    public synchronized void invalidate() {
+        rules = null;
+        ruleIDs.clear();
+        months.clear();
+    }
+
+    /**
+     * contains - Check if a task was a repeating task when the repeating tasks were last read
+     *
+     * @param ID The task ID
+     * @return true if the task repeats, false if it does not or the repeating tasks are not read
+     */
+    public synchronized boolean contains(int ID) {
+        return ruleIDs.contains(ID);
+    }
+
+    /**
+     * getTasks - Get the repeating tasks of a day
+     *
+     * @param date The day
+     * @return Copies of the tasks on that day, in time order
+     */
+    public synchronized List<Task> getTasks(LocalDate date) {
+        List<Task> tasks = month(YearMonth.from(date)).get(date);
+        List<Task> copies = new ArrayList<>();
+        if (tasks != null) {
+            for (Task t : tasks) {
+                copies.add(new Task(t));
+            }
+        }
+        return copies;
+    }
+
+    /**
+     * hasTasks - Check if there is any repeating task on a day
+     *
+     * @param date The day
+     * @return true if a repeating task is on that day
+     */
+    public synchronized boolean hasTasks(LocalDate date) {
+        return month(YearMonth.from(date)).containsKey(date);
+    }
+
+    /**
+     * getBusyDays - Get the days of a month which have repeating tasks
+     *
+     * @param month The month
+     * @return A BitSet where bit n is set if day n of the month has repeating tasks
+     */
+    public synchronized BitSet getBusyDays(YearMonth month) {
+        BitSet busyDays = new BitSet(32);
+        for (LocalDate date : month(month).keySet()) {
+            busyDays.set(date.getDayOfMonth());
+        }
+        return busyDays;
+    }
+
+    /**
+     * occurrences - Get the repeating tasks of a date range in date and time order.
+     * The days are worked out one month at a time as the iterator reaches them.
+     *
+     * @param from     The first date of the range
+     * @param to       The last date of the range, inclusive
+     * @param category Only get the tasks of this category, or null for every category
+     * @param done     Only get the tasks in this done state, or null for both
+     * @return Copies of the tasks, one for each day they are on
+     */
+    public Iterator<Task> occurrences(LocalDate from, LocalDate to, String category, Boolean done) {
+        return new Iterator<Task>() {
+            private YearMonth month = YearMonth.from(from);
+            private Iterator<Task> current = Collections.emptyIterator();
+            private Task next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null) {
+                    if (current.hasNext()) {
+                        Task t = current.next();
+                        if (!t.getDate().isBefore(from) && !t.getDate().isAfter(to)
+                                && (category == null || category.equals(t.getCategory()))
+                                && (done == null || done == t.isDone())) {
+                            next = new Task(t);
+                        }
+                    } else if (!month.isAfter(YearMonth.from(to))) {
+                        List<Task> tasks = new ArrayList<>();
+                        synchronized (RecurringTasks.this) {
+                            for (List<Task> day : month(month).values()) {
+                                tasks.addAll(day);
+                            }
+                        }
+                        current = tasks.iterator();
+                        month = month.plusMonths(1);
+                    } else {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public Task next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Task t = next;
+                next = null;
+                return t;
+            }
+        };
+    }
+
+    /**
+     * month - Get the repeating tasks of each day of a month, working them out if the month is not cached
+     */
+    private Map<LocalDate, List<Task>> month(YearMonth month) {
+        Map<LocalDate, List<Task>> days = months.get(month);
+        if (days != null) {
+            return days;
+        }
+        if (rules == null) {
+            rules = loader.get();
+            for (Task rule : rules) {
+                ruleIDs.add(rule.getID());
+            }
+        }
+        days = new TreeMap<>();
+        for (Task rule : rules) {
+            for (LocalDate date : rule.getRecurrence().occurrences(month.atDay(1), month.atEndOfMonth())) {
+                Task occurrence = new Task(rule);
+                occurrence.setDateTime(date.atTime(rule.getDateTime().toLocalTime()));
+                days.computeIfAbsent(date, d -> new ArrayList<>()).add(occurrence);
+            }
+        }
+        for (List<Task> tasks : days.values()) {
+            tasks.sort(byTime);
+        }
+        months.put(month, days);
+        return days;
+    }
+}
@@ -0,0 +1,177 @@
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * @author Audreen Soh
+ * <p>
+ * This class shows a window to search the task titles, task descriptions and day notes.
+ * The results are shown as the query is typed, the latest days first.
+ * Double clicking a result, or pressing enter, shows its day in the calendar and the tasks list.
+ */
+public class SearchDialog {
+    private static final DateTimeFormatter dayFormatter = DateTimeFormatter.ofPattern("dd MMM yyyy");
+    // Milliseconds of no typing before the search runs
+    private static final int delay = 200;
+    private static final int maxResults = 200;
+
+    private final CalendarModel model;
+    private final Database database;
+    private final JDialog dialog;
+    private final JTextField queryField = new JTextField();
+    private final DefaultListModel<SearchResult> listModel = new DefaultListModel<>();
+    private final JList<SearchResult> list = new JList<>(listModel);
+    private final JLabel status = new JLabel(" ");
+    // The query of the latest search, the results of an older search are dropped
+    private String query = "";
+
+    /**
+     * Class constructor.
+     *
+     * @param owner    The window the search is opened from
+     * @param model    The calendar model of the page, the day of a result is selected in it
+     * @param database The database object
+     */
+    public SearchDialog(Window owner, CalendarModel model, Database database) {
+        this.model = model;
+        this.database = database;
+
+        dialog = new JDialog(owner, "Search");
+        dialog.setSize(600, 450);
+        dialog.setLocationRelativeTo(owner);
+        dialog.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+
+        JPanel mainPanel = new JPanel(new BorderLayout(10, 10));
+        mainPanel.setBackground(Color.WHITE);
+        mainPanel.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
+
+        queryField.setFont(UIResources.font(Font.PLAIN, 20));
+        mainPanel.add(queryField, BorderLayout.NORTH);
+
+        list.setFont(UIResources.font(Font.PLAIN, 15));
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+                SearchResult result = (SearchResult) value;
+                String text = result.getDate().format(dayFormatter) + "   " + result.getTitle();
+                if (result.getText() != null && !result.getText().isEmpty()) {
+                    text += " - " + result.getText().replace('\n', ' ');
+                }
+                return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+            }
+        });
+        list.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    showSelected();
+                }
+            }
+        });
+        mainPanel.add(new JScrollPane(list), BorderLayout.CENTER);
+
+        status.setFont(UIResources.font(Font.PLAIN, 13));
+        status.setForeground(Color.DARK_GRAY);
+        mainPanel.add(status, BorderLayout.SOUTH);
+
+        // Search once the typing pauses
+        Timer timer = new Timer(delay, e -> search());
+        timer.setRepeats(false);
+        queryField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                timer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                timer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
+        // Enter shows the selected result, or the first one, and the down arrow moves to the results
+        queryField.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (e.getKeyCode() == KeyEvent.VK_ENTER) {
+                    showSelected();
+                } else if (e.getKeyCode() == KeyEvent.VK_DOWN && !listModel.isEmpty()) {
+                    list.requestFocusInWindow();
+                }
+            }
+        });
+        list.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (e.getKeyCode() == KeyEvent.VK_ENTER) {
+                    showSelected();
+                }
+            }
+        });
+
+        dialog.add(mainPanel);
+        dialog.setVisible(true);
+    }
+
+    /**
+     * search - Search the query off the event dispatch thread and show the results
+     */
+    private void search() {
+        String searched = queryField.getText().trim();
+        query = searched;
+        if (searched.isEmpty()) {
+            listModel.clear();
+            status.setText(" ");
+            return;
+        }
+        status.setText("Searching...");
+        database.async().read(() -> database.search(searched, maxResults)).thenAcceptAsync(results -> {
+            if (!searched.equals(query)) {
+                return;
+            }
+            showResults(results);
+        }, AsyncDatabase.EDT);
+    }
+
+    private void showResults(List<SearchResult> results) {
+        listModel.clear();
+        for (SearchResult result : results) {
+            listModel.addElement(result);
+        }
+        if (results.isEmpty()) {
+            status.setText("No results");
+        } else if (results.size() >= maxResults) {
+            status.setText("Showing the latest " + maxResults + " results");
+        } else {
+            status.setText(results.size() + (results.size() == 1 ? " result" : " results"));
+        }
+    }
+
+    /**
+     * showSelected - Show the day of the selected result, or of the first result, and close the search
+     */
+    private void showSelected() {
+        if (listModel.isEmpty()) {
+            return;
+        }
+        SearchResult result = list.isSelectionEmpty() ? listModel.getElementAt(0) : list.getSelectedValue();
+        LocalDate day = result.getDate();
+        model.setMonth(YearMonth.from(day));
+        model.setSelectedDay(day);
+        dialog.dispose();
+    }
+}
@@ -0,0 +1,251 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * @author Audreen Soh
+ * <p>
+ * This class implements an in-memory inverted index of the words in the task titles, the task descriptions
+ * and the day notes. Every task and every day's notes is a document of the index, numbered in the order it is added,
+ * and each word keeps the sorted list of the documents which contain it.
+ * A changed task or notes is added again as a new document and the old document is marked as removed,
+ * so the index is updated by the database writes without rewriting any list.
+ * The index is built from the database on the first search, and built again once too many documents are removed.
+ */
+public class SearchIndex {
+    // Removed documents which make the index be built again, once they are also more than the documents in use
+    private static final int maxRemoved = 10000;
+
+    // Document numbers of each word, the words are sorted so a search term also matches the words it starts
+    private final TreeMap<String, Postings> wordDocuments = new TreeMap<>();
+    // Day and task ID of each document, the task ID is 0 for notes
+    private int[] documentDays = new int[1024];
+    private int[] documentTasks = new int[1024];
+    private int documents;
+    private final BitSet live = new BitSet();
+    private int removed;
+    // Document number + 1 of each task, indexed by the task ID
+    private int[] taskDocuments = new int[1024];
+    private final Map<LocalDate, Integer> notesDocuments = new HashMap<>();
+    private boolean built = false;
+
+    /**
+     * The sorted document numbers of a word.
+     */
+    private static class Postings {
+        private int[] documents = new int[2];
+        private int size;
+
+        private void add(int document) {
+            // A document adds its words in order, a word it contains twice is listed once
+            if (size > 0 && documents[size - 1] == document) {
+                return;
+            }
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+            }
+            documents[size++] = document;
+        }
+    }
+
+    /**
+     * isBuilt - Check if the index holds the data of the database and is kept up to date
+     */
+    public synchronized boolean isBuilt() {
+        return built;
+    }
+
+    /**
+     * build - Replace the index with the words of every task and every day's notes
+     *
+     * @param tasks All the tasks
+     * @param notes The notes of each day
+     */
+    public synchronized void build(Iterator<Task> tasks, Map<LocalDate, String> notes) {
+        clear();
+        built = true;
+        while (tasks.hasNext()) {
+            Task t = tasks.next();
+            putTask(t.getID(), t.getDate(), t.getTitle(), t.getDescription());
+        }
+        for (Map.Entry<LocalDate, String> entry : notes.entrySet()) {
+            putNotes(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * clear - Empty the index, it is built again on the next search
+     */
+    public synchronized void clear() {
+        built = false;
+        wordDocuments.clear();
+        documents = 0;
+        live.clear();
+        removed = 0;
+        Arrays.fill(taskDocuments, 0);
+        notesDocuments.clear();
+    }
+
+    /**
+     * putTask - Index a new or changed task, nothing is done until the index is built
+     *
+     * @param ID          The task ID
+     * @param date        The day of the task
+     * @param title       The task title
+     * @param description The task description, or null
+     */
+    public synchronized void putTask(int ID, LocalDate date, String title, String description) {
+        if (!built) {
+            return;
+        }
+        removeTask(ID);
+        // Removing the old document may have emptied the index
+        if (!built) {
+            return;
+        }
+        int document = addDocument(date, ID);
+        if (ID >= taskDocuments.length) {
+            taskDocuments = Arrays.copyOf(taskDocuments, Math.max(ID + 1, taskDocuments.length * 2));
+        }
+        taskDocuments[ID] = document + 1;
+        addWords(document, title);
+        addWords(document, description);
+    }
+
+    /**
+     * removeTask - Remove a deleted task from the index
+     *
+     * @param ID The task ID
+     */
+    public synchronized void removeTask(int ID) {
+        if (ID < taskDocuments.length && taskDocuments[ID] > 0) {
+            removeDocument(taskDocuments[ID] - 1);
+            taskDocuments[ID] = 0;
+        }
+    }
+
+    /**
+     * putNotes - Index the new or changed notes of a day, nothing is done until the index is built
+     *
+     * @param date The day
+     * @param note The notes
+     */
+    public synchronized void putNotes(LocalDate date, String note) {
+        if (!built) {
+            return;
+        }
+        Integer old = notesDocuments.remove(date);
+        if (old != null) {
+            removeDocument(old);
+            if (!built) {
+                return;
+            }
+        }
+        int document = addDocument(date, 0);
+        notesDocuments.put(date, document);
+        addWords(document, note);
+    }
+
+    /**
+     * search - Find the tasks and notes which contain every word of a query, the latest days first.
+     * Each word of the query also matches the longer words it starts, so "meet" finds "meeting".
+     *
+     * @param query The words to search for
+     * @param limit The maximum number of results
+     * @return The day and task ID of the matches, without the titles and texts
+     */
+    public synchronized List<SearchResult> search(String query, int limit) {
+        List<SearchResult> results = new ArrayList<>();
+        List<String> terms = words(query);
+        if (terms.isEmpty()) {
+            return results;
+        }
+        BitSet matches = null;
+        for (String term : terms) {
+            BitSet termMatches = new BitSet(documents);
+            for (Postings postings : wordDocuments.subMap(term, true, term + Character.MAX_VALUE, true).values()) {
+                for (int i = 0; i < postings.size; i++) {
+                    termMatches.set(postings.documents[i]);
+                }
+            }
+            if (matches == null) {
+                matches = termMatches;
+            } else {
+                matches.and(termMatches);
+            }
+            if (matches.isEmpty()) {
+                return results;
+            }
+        }
+        matches.and(live);
+
+        // Sort the matches by day, the document number keeps the order within a day
+        long[] keys = new long[matches.cardinality()];
+        int n = 0;
+        for (int document = matches.nextSetBit(0); document >= 0; document = matches.nextSetBit(document + 1)) {
+            keys[n++] = ((long) documentDays[document] << 32) | document;
+        }
+        Arrays.sort(keys);
+        for (int i = keys.length - 1; i >= 0 && results.size() < limit; i--) {
+            int document = (int) keys[i];
+            results.add(new SearchResult(LocalDate.ofEpochDay(documentDays[document]), documentTasks[document]));
+        }
+        return results;
+    }
+
+    /**
+     * words - Split a text into lower case words of letters and digits
+     *
+     * @param text The text, or null
+     * @return The words in the order they appear
+     */
+    public static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word.append(Character.toLowerCase(c));
+            } else if (word.length() > 0) {
+                words.add(word.toString());
+                word.setLength(0);
+            }
+        }
+        return words;
+    }
+
+    private int addDocument(LocalDate date, int taskID) {
+        if (documents == documentDays.length) {
+            documentDays = Arrays.copyOf(documentDays, documents * 2);
+            documentTasks = Arrays.copyOf(documentTasks, documents * 2);
+        }
+        documentDays[documents] = (int) date.toEpochDay();
+        documentTasks[documents] = taskID;
+        live.set(documents);
+        return documents++;
+    }
+
+    private void removeDocument(int document) {
+        live.clear(document);
+        removed++;
+        // The words of removed documents are never taken out of the lists, start again once they are most of the index
+        if (removed > maxRemoved && removed > documents - removed) {
+            clear();
+        }
+    }
+
+    private void addWords(int document, String text) {
+        for (String word : words(text)) {
+            wordDocuments.computeIfAbsent(word, w -> new Postings()).add(document);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+import java.time.LocalDate;
+
+/**
+ * @author Audreen Soh
+ * <p>
+ * This class holds a match of a search, a task or the notes of a day.
+ */
+public class SearchResult {
+    private final LocalDate date;
+    // ID of the matching task, or 0 if the notes of the day match
+    private final int taskID;
+    private String title;
+    private String text;
+
+    /**
+     * Class constructor.
+     *
+     * @param date   The day of the match
+     * @param taskID The ID of the matching task, or 0 for the notes of the day
+     */
+    public SearchResult(LocalDate date, int taskID) {
+        this.date = date;
+        this.taskID = taskID;
+    }
+
+    public boolean isNotes() {
+        return taskID == 0;
+    }
+
+    /**
+     * Getters and setters
+     */
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public int getTaskID() {
+        return taskID;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+}
@@ -9,12 +9,23 @@ import java.time.format.DateTimeFormatter;
  * This class implements Task object
  */
 public class Task {
+    // Formatters are immutable and thread safe, so one of each is shared by all tasks
+    private static final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("dd-MM-yyyy | HH:mm");
+    private static final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+    private static final DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
+
     private int ID;
     private String title;
     private String description;
     private String category;
     private boolean isDone;
     private LocalDateTime dateTime;
+    // Rule of a repeating task, or null. The date of a repeating task is the day it is shown on
+    private Recurrence recurrence;
+    // Length of the task in minutes, or 0 if the task has no duration
+    private int duration;
+    // UID of a task imported from a calendar file, or null
+    private String uid;
 
     /**
      * Class constructor.
@@ -50,6 +61,18 @@ public class Task {
     public Task() {
     }
 
+    /**
+     * Copy constructor.
+     *
+     * @param t The task to copy
+     */
+    public Task(Task t) {
+        this(t.ID, t.title, t.description, t.category, t.isDone, t.dateTime);
+        this.recurrence = t.recurrence;
+        this.duration = t.duration;
+        this.uid = t.uid;
+    }
+
     /**
      * Getters and setters
      */
@@ -101,6 +124,30 @@ public class Task {
         this.dateTime = dateTime;
     }
 
+    public Recurrence getRecurrence() {
+        return recurrence;
+    }
+
+    public void setRecurrence(Recurrence recurrence) {
+        this.recurrence = recurrence;
+    }
+
+    public int getDuration() {
+        return duration;
+    }
+
+    public void setDuration(int duration) {
+        this.duration = duration;
+    }
+
+    public String getUid() {
+        return uid;
+    }
+
+    public void setUid(String uid) {
+        this.uid = uid;
+    }
+
 
     //Custom date and time getters and setters
 
@@ -111,25 +158,57 @@ public class Task {
         return dateTime.toLocalDate();
     }
 
+    /**
+     * getStoredDate returns the date kept in the database, the first day of a repeating task.
+     */
+    public LocalDate getStoredDate() {
+        return recurrence == null ? getDate() : recurrence.getStart();
+    }
+
+    /**
+     * getStartMinute returns the start time as the number of minutes since midnight.
+     */
+    public int getStartMinute() {
+        return dateTime.getHour() * 60 + dateTime.getMinute();
+    }
+
+    /**
+     * getEndMinute returns the end time as the number of minutes since midnight.
+     * A task without a duration takes one minute, and a task which would run past midnight ends at midnight.
+     */
+    public int getEndMinute() {
+        return Math.min(24 * 60, getStartMinute() + Math.max(duration, 1));
+    }
+
     /**
      * getDateTimeToString returns the string of formatted datetime.
      */
     public String getDateTimeToString() {
-        return dateTime.format(DateTimeFormatter.ofPattern("dd-MM-yyyy | HH:mm"));
+        return dateTime.format(dateTimeFormatter);
     }
 
     /**
      * getDateToString returns the string of formatted date.
      */
     public String getDateToString() {
-        return dateTime.format(DateTimeFormatter.ofPattern("dd-MM-yyyy"));
+        return dateTime.format(dateFormatter);
     }
 
     /**
      * getDateToString returns the string of formatted time.
      */
     public String getTimeToString() {
-        return dateTime.format(DateTimeFormatter.ofPattern("HH:mm"));
+        return dateTime.format(timeFormatter);
+    }
+
+    /**
+     * getTimeRangeToString returns the start and end times of a task with a duration, or only the start time.
+     */
+    public String getTimeRangeToString() {
+        if (duration <= 0) {
+            return getTimeToString();
+        }
+        return getTimeToString() + " - " + LocalTime.MIN.plusMinutes(getEndMinute()).format(timeFormatter);
     }
 
     /**
@@ -138,7 +217,7 @@ public class Task {
      * @param dt the string value of a datetime
      */
     public void setDateTimeFromString(String dt) {
-        this.dateTime = LocalDateTime.parse(dt, DateTimeFormatter.ofPattern("dd-MM-yyyy | HH:mm"));
+        this.dateTime = LocalDateTime.parse(dt, dateTimeFormatter);
     }
 
     /**
@@ -147,6 +226,6 @@ public class Task {
      * @param time The string value of a time
      */
     public void setTime(String time) {
-        this.dateTime = LocalDateTime.of(dateTime.toLocalDate(), LocalTime.parse(time, DateTimeFormatter.ofPattern("HH:mm")));
+        this.dateTime = LocalDateTime.of(dateTime.toLocalDate(), LocalTime.parse(time, timeFormatter));
     }
 }
@@ -0,0 +1,171 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Audreen Soh
+ * <p>
+ * This class implements a least recently used cache of the task lists of single days.
+ * The cache keeps its own copies of the tasks, as the UI changes the tasks it is given before they are saved.
+ * The interval tree of a cached day is built on its first conflict check and dropped with the day.
+ */
+public class TaskCache {
+    private final int maxDays;
+    private final LinkedHashMap<LocalDate, List<Task>> days;
+    // The date each cached task is listed under, used to find the old date of a task which is moved
+    private final Map<Integer, LocalDate> taskDates = new HashMap<>();
+    // Interval trees of the cached days which were checked for conflicts
+    private final Map<LocalDate, IntervalTree> trees = new HashMap<>();
+    private long hits;
+    private long misses;
+    // Counts the invalidations, so a day read before a change is not cached after it
+    private long generation;
+
+    /**
+     * Class constructor.
+     *
+     * @param maxDays The maximum number of days to keep in the cache
+     */
+    public TaskCache(int maxDays) {
+        this.maxDays = maxDays;
+        // Access order makes the first entry the least recently used one
+        this.days = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * get - Get the cached tasks of a day
+     *
+     * @param date The date
+     * @return A copy of the cached tasks, or null if the day is not cached
+     */
+    public synchronized ArrayList<Task> get(LocalDate date) {
+        List<Task> tasks = days.get(date);
+        if (tasks == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return copy(tasks);
+    }
+
+    /**
+     * getTree - Get the interval tree of a cached day, building it from the cached tasks the first time
+     *
+     * @param date The date
+     * @return The interval tree, or null if the day is not cached
+     */
+    public synchronized IntervalTree getTree(LocalDate date) {
+        List<Task> tasks = days.get(date);
+        if (tasks == null) {
+            return null;
+        }
+        return trees.computeIfAbsent(date, d -> new IntervalTree(tasks));
+    }
+
+    /**
+     * getGeneration - Get the number of invalidations so far, taken before reading the tasks of a day to cache
+     *
+     * @return The generation
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * put - Cache the tasks of a day, evicting the least recently used day if the cache is full.
+     * The tasks are not cached if anything was invalidated since they were read, as they may be out of date.
+     *
+     * @param date       The date
+     * @param tasks      The tasks of the day
+     * @param generation The generation taken before the tasks were read
+     */
+    public synchronized void put(LocalDate date, List<Task> tasks, long generation) {
+        if (generation != this.generation) {
+            return;
+        }
+        remove(date);
+        days.put(date, copy(tasks));
+        for (Task t : tasks) {
+            taskDates.put(t.getID(), date);
+        }
+        if (days.size() > maxDays) {
+            remove(days.keySet().iterator().next());
+        }
+    }
+
+    /**
+     * invalidate - Remove a day from the cache
+     *
+     * @param date The date
+     */
+    public synchronized void invalidate(LocalDate date) {
+        generation++;
+        remove(date);
+    }
+
+    /**
+     * invalidateTask - Remove the day a task is cached under from the cache
+     *
+     * @param ID The task ID
+     */
+    public synchronized void invalidateTask(int ID) {
+        generation++;
+        LocalDate date = taskDates.get(ID);
+        if (date != null) {
+            invalidate(date);
+        }
+    }
+
+    /**
+     * clear - Remove all days from the cache
+     */
+    public synchronized void clear() {
+        generation++;
+        days.clear();
+        taskDates.clear();
+        trees.clear();
+    }
+
+    /**
+     * Hit and miss counters
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "TaskCache[days=" + days.size() + ", hits=" + hits + ", misses=" + misses + "]";
+    }
+
+    /**
+     * remove - Remove a day and the dates of its tasks
+     */
+    private void remove(LocalDate date) {
+        List<Task> tasks = days.remove(date);
+        trees.remove(date);
+        if (tasks != null) {
+            for (Task t : tasks) {
+                taskDates.remove(t.getID());
+            }
+        }
+    }
+
+    /**
+     * copy - Copy a task list and its tasks
+     */
+    private static ArrayList<Task> copy(List<Task> tasks) {
+        ArrayList<Task> copy = new ArrayList<>(tasks.size());
+        for (Task t : tasks) {
+            copy.add(new Task(t));
+        }
+        return copy;
+    }
+}
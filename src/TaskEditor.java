@@ -4,7 +4,8 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
+import java.util.SortedSet;
+import java.util.TreeSet;
 
 /**
  * @author Audreen Soh
@@ -12,22 +13,23 @@ import java.util.ArrayList;
  * TaskEditor This class shows a form UI to add or edit a task.
  */
 public class TaskEditor {
+    private static final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+    // Overlapping tasks listed in the warning before a save
+    private static final int maxConflictsShown = 10;
 
     // Categories array for drop down menu
-    String[] categories = {"General", "Holiday", "Personal", "Meeting", "Social"};
+    static final String[] categories = {"General", "Holiday", "Personal", "Meeting", "Social"};
+    // Repeat options for drop down menu, in the order of Recurrence.Frequency after "Never"
+    String[] repeats = {"Never", "Daily", "Weekly", "Monthly", "Yearly"};
 
     /**
      * Class constructor.
      *
      * @param t           This can be a new task or an existing task
      * @param database    The database object
-     * @param parentFrame The main frame object
-     * @param parentPanel The parent panel object
+     * @param model       The calendar model of the page the editor is opened from, told about the task changes made
      */
-    public TaskEditor(Task t, Database database, JFrame parentFrame, JPanel parentPanel) {
-        int year = t.getDate().getYear();
-        int month = t.getDate().getMonthValue();
-
+    public TaskEditor(Task t, Database database, CalendarModel model) {
         // Set title
         JFrame frame = new JFrame("Add Task");
         // Edit mode - Set title as task name
@@ -36,9 +38,9 @@ public class TaskEditor {
         }
 
         //Set up frame for task editor
-        ImageIcon img = new ImageIcon("resources/add.png");
+        ImageIcon img = UIResources.icon("add.png");
         frame.setIconImage(img.getImage());
-        frame.setSize(600, 400);
+        frame.setSize(600, 570);
         frame.setLocationRelativeTo(null);
         frame.getContentPane().setBackground(Color.WHITE);
 
@@ -56,7 +58,7 @@ public class TaskEditor {
         constraints.gridx = 0;
         constraints.gridy = 0;
         JLabel titleLabel = new JLabel("Title:");
-        titleLabel.setFont(new Font("Helvetica", Font.PLAIN, 20));
+        titleLabel.setFont(UIResources.font(Font.PLAIN, 20));
         titleLabel.setPreferredSize(new Dimension(120, 40));
         titleLabel.setHorizontalAlignment(JLabel.LEFT);
         mainPanel.add(titleLabel, constraints);
@@ -64,7 +66,7 @@ public class TaskEditor {
         constraints.gridx = 1;
         constraints.gridy = 0;
         JTextField titleField = new JTextField();
-        titleField.setFont(new Font("Helvetica", Font.PLAIN, 20));
+        titleField.setFont(UIResources.font(Font.PLAIN, 20));
         titleField.setPreferredSize(new Dimension(200, 40));
         mainPanel.add(titleField, constraints);
 
@@ -72,7 +74,7 @@ public class TaskEditor {
         constraints.gridx = 0;
         constraints.gridy = 1;
         JLabel timeLabel = new JLabel("Time:");
-        timeLabel.setFont(new Font("Helvetica", Font.PLAIN, 20));
+        timeLabel.setFont(UIResources.font(Font.PLAIN, 20));
         timeLabel.setPreferredSize(new Dimension(120, 40));
         timeLabel.setHorizontalAlignment(JLabel.LEFT);
         mainPanel.add(timeLabel, constraints);
@@ -80,44 +82,128 @@ public class TaskEditor {
         constraints.gridx = 1;
         constraints.gridy = 1;
         JTextField timeField = new JTextField();
-        timeField.setFont(new Font("Helvetica", Font.PLAIN, 20));
+        timeField.setFont(UIResources.font(Font.PLAIN, 20));
         timeField.setPreferredSize(new Dimension(200, 40));
         mainPanel.add(timeField, constraints);
 
-        // Category
+        // Duration in minutes, 0 for a task without a duration
         constraints.gridx = 0;
         constraints.gridy = 2;
+        JLabel durationLabel = new JLabel("Duration:");
+        durationLabel.setFont(UIResources.font(Font.PLAIN, 20));
+        durationLabel.setPreferredSize(new Dimension(120, 40));
+        durationLabel.setHorizontalAlignment(JLabel.LEFT);
+        mainPanel.add(durationLabel, constraints);
+
+        constraints.gridx = 1;
+        constraints.gridy = 2;
+        JPanel durationPanel = new JPanel(new GridLayout(1, 2, 10, 0));
+        durationPanel.setBackground(null);
+        JSpinner durationField = new JSpinner(new SpinnerNumberModel(0, 0, 24 * 60, 15));
+        durationField.setFont(UIResources.font(Font.PLAIN, 15));
+        durationPanel.add(durationField);
+        JLabel minutesLabel = new JLabel("minutes");
+        minutesLabel.setFont(UIResources.font(Font.PLAIN, 15));
+        durationPanel.add(minutesLabel);
+        durationPanel.setPreferredSize(new Dimension(200, 40));
+        mainPanel.add(durationPanel, constraints);
+
+        // Category
+        constraints.gridx = 0;
+        constraints.gridy = 3;
         JLabel catagoriesLabel = new JLabel("Category:");
-        catagoriesLabel.setFont(new Font("Helvetica", Font.PLAIN, 20));
+        catagoriesLabel.setFont(UIResources.font(Font.PLAIN, 20));
         catagoriesLabel.setPreferredSize(new Dimension(100, 40));
         catagoriesLabel.setHorizontalAlignment(JLabel.LEFT);
         mainPanel.add(catagoriesLabel, constraints);
 
         constraints.gridx = 1;
-        constraints.gridy = 2;
+        constraints.gridy = 3;
         final JComboBox<String> categoriesField = new JComboBox<String>(categories);
-        categoriesField.setFont(new Font("Helvetica", Font.PLAIN, 20));
+        categoriesField.setFont(UIResources.font(Font.PLAIN, 20));
         categoriesField.setPreferredSize(new Dimension(200, 40));
         // Set dropdown labels to align center
         ((JLabel) categoriesField.getRenderer()).setHorizontalAlignment(JLabel.CENTER);
         mainPanel.add(categoriesField, constraints);
 
+        // Repeat, every how many days, weeks, months or years
+        constraints.gridx = 0;
+        constraints.gridy = 4;
+        JLabel repeatLabel = new JLabel("Repeat:");
+        repeatLabel.setFont(UIResources.font(Font.PLAIN, 20));
+        repeatLabel.setPreferredSize(new Dimension(120, 40));
+        repeatLabel.setHorizontalAlignment(JLabel.LEFT);
+        mainPanel.add(repeatLabel, constraints);
+
+        constraints.gridx = 1;
+        constraints.gridy = 4;
+        JPanel repeatPanel = new JPanel(new GridLayout(1, 3, 10, 0));
+        repeatPanel.setBackground(null);
+        final JComboBox<String> repeatField = new JComboBox<String>(repeats);
+        repeatField.setFont(UIResources.font(Font.PLAIN, 15));
+        repeatPanel.add(repeatField);
+        JLabel everyLabel = new JLabel("every");
+        everyLabel.setFont(UIResources.font(Font.PLAIN, 15));
+        everyLabel.setHorizontalAlignment(JLabel.RIGHT);
+        repeatPanel.add(everyLabel);
+        JSpinner intervalField = new JSpinner(new SpinnerNumberModel(1, 1, 999, 1));
+        intervalField.setFont(UIResources.font(Font.PLAIN, 15));
+        repeatPanel.add(intervalField);
+        repeatPanel.setPreferredSize(new Dimension(200, 40));
+        mainPanel.add(repeatPanel, constraints);
+
+        // End of the repeats, on a date or after a number of times, both optional
+        constraints.gridx = 0;
+        constraints.gridy = 5;
+        JLabel endsLabel = new JLabel("Ends:");
+        endsLabel.setFont(UIResources.font(Font.PLAIN, 20));
+        endsLabel.setPreferredSize(new Dimension(120, 40));
+        endsLabel.setHorizontalAlignment(JLabel.LEFT);
+        mainPanel.add(endsLabel, constraints);
+
+        constraints.gridx = 1;
+        constraints.gridy = 5;
+        JPanel endsPanel = new JPanel(new GridLayout(1, 3, 10, 0));
+        endsPanel.setBackground(null);
+        JTextField untilField = new JTextField();
+        untilField.setFont(UIResources.font(Font.PLAIN, 15));
+        untilField.setToolTipText("Last day, dd-MM-yyyy");
+        endsPanel.add(untilField);
+        JLabel afterLabel = new JLabel("or after times");
+        afterLabel.setFont(UIResources.font(Font.PLAIN, 15));
+        afterLabel.setHorizontalAlignment(JLabel.RIGHT);
+        endsPanel.add(afterLabel);
+        JTextField countField = new JTextField();
+        countField.setFont(UIResources.font(Font.PLAIN, 15));
+        endsPanel.add(countField);
+        endsPanel.setPreferredSize(new Dimension(200, 40));
+        mainPanel.add(endsPanel, constraints);
+
+        // The end fields only apply to a repeating task
+        ActionListener repeatChanged = e -> {
+            boolean repeating = repeatField.getSelectedIndex() > 0;
+            intervalField.setEnabled(repeating);
+            untilField.setEnabled(repeating);
+            countField.setEnabled(repeating);
+        };
+        repeatField.addActionListener(repeatChanged);
+
         // Description
         constraints.gridx = 0;
-        constraints.gridy = 3;
+        constraints.gridy = 6;
         JLabel descLabel = new JLabel("Description:");
-        descLabel.setFont(new Font("Helvetica", Font.PLAIN, 20));
+        descLabel.setFont(UIResources.font(Font.PLAIN, 20));
         descLabel.setPreferredSize(new Dimension(120, 40));
         descLabel.setHorizontalAlignment(JLabel.LEFT);
         mainPanel.add(descLabel, constraints);
 
         constraints.gridx = 1;
-        constraints.gridy = 3;
+        constraints.gridy = 6;
         constraints.weightx = 1;
         JTextArea descField = new JTextArea(3, 0);
         descField.setPreferredSize(new Dimension(200,300));
         descField.setBorder(BorderFactory.createLineBorder(Color.BLACK));
-        descField.setFont(new Font("Helvetica", Font.PLAIN, 20));
+        descField.setFont(UIResources.font(Font.PLAIN, 20));
         JScrollPane scroll = new JScrollPane(descField);
         mainPanel.add(scroll, constraints);
 
@@ -128,23 +214,32 @@ public class TaskEditor {
 
         //Add delete button
         JButton deleteTaskButton = new JButton("Delete");
-        deleteTaskButton.setFont(new Font("Helvetica", Font.PLAIN, 15));
-        deleteTaskButton.setBackground(Color.decode("#e3deca"));
-        deleteTaskButton.setForeground(Color.decode("#3c3a1e"));
+        deleteTaskButton.setFont(UIResources.font(Font.PLAIN, 15));
+        deleteTaskButton.setBackground(UIResources.color("#e3deca"));
+        deleteTaskButton.setForeground(UIResources.color("#3c3a1e"));
         deleteTaskButton.setPreferredSize(new Dimension(40,30));
         deleteTaskButton.setBorder(BorderFactory.createEmptyBorder(2, 2, 2, 2));
         bottomPanel.add(deleteTaskButton);
 
         //Add save button
         JButton saveTaskButton = new JButton("Save");
-        saveTaskButton.setFont(new Font("Helvetica", Font.PLAIN, 15));
-        saveTaskButton.setBackground(Color.decode("#3c3a1e"));
+        saveTaskButton.setFont(UIResources.font(Font.PLAIN, 15));
+        saveTaskButton.setBackground(UIResources.color("#3c3a1e"));
         saveTaskButton.setForeground(Color.WHITE);
         saveTaskButton.setPreferredSize(new Dimension(40,30));
         saveTaskButton.setBorder(BorderFactory.createEmptyBorder(2, 2, 2, 2));
         bottomPanel.add(saveTaskButton);
 
         timeField.setText(t.getTimeToString());
+        durationField.setValue(t.getDuration());
+        Recurrence recurrence = t.getRecurrence();
+        if (recurrence != null) {
+            repeatField.setSelectedIndex(recurrence.getFrequency().ordinal() + 1);
+            intervalField.setValue(recurrence.getInterval());
+            untilField.setText(recurrence.getUntil() == null ? "" : recurrence.getUntil().format(dateFormatter));
+            countField.setText(recurrence.getCount() == 0 ? "" : Integer.toString(recurrence.getCount()));
+        }
+        repeatChanged.actionPerformed(null);
 
         // Update task
         if (t.getTitle() != null) {
@@ -159,33 +254,61 @@ public class TaskEditor {
                         return;
                     }
 
-                    t.setTitle(titleField.getText());
-                    t.setDescription(descField.getText());
-                    t.setCategory(categoriesField.getSelectedItem().toString());
+                    Recurrence newRecurrence;
                     try {
-                        t.setTime(timeField.getText());
+                        newRecurrence = readRecurrence(repeatField, intervalField, untilField, countField, recurrence, t.getDate());
+                    } catch (Exception exception) {
+                        JOptionPane.showMessageDialog(mainPanel, "Check end date format dd-MM-yyyy and number of times");
+                        return;
+                    }
+
+                    // The changes are made on a copy, the task shown in the list is left as it is if the save is cancelled
+                    Task edited = new Task(t);
+                    edited.setTitle(titleField.getText());
+                    edited.setDescription(descField.getText());
+                    edited.setCategory(categoriesField.getSelectedItem().toString());
+                    try {
+                        edited.setTime(timeField.getText());
                     } catch (Exception exception) {
                         JOptionPane.showMessageDialog(mainPanel, "Check time format HH:mm");
                         return;
                     }
+                    edited.setDuration((Integer) durationField.getValue());
+                    edited.setRecurrence(newRecurrence);
 
-                    database.updateTask(t);
-                    resetMainPanel(parentFrame, parentPanel, t.getDate(), database, new Calendar(year, month, t.getDate(), parentFrame, parentPanel, database));
-                    frame.dispose();
+                    // Save off the event dispatch thread, then refresh the views of the day, or of every day if the task repeats
+                    boolean repeats = recurrence != null || newRecurrence != null;
+                    saveWithoutConflicts(frame, saveTaskButton, database, edited, () ->
+                            database.async().updateTask(edited).thenRunAsync(() -> fireTasksChanged(model, edited, repeats), AsyncDatabase.EDT));
                 }
             });
 
             deleteTaskButton.addActionListener(new ActionListener() {
                 @Override
                 public void actionPerformed(ActionEvent e) {
+                    if (recurrence != null) {
+                        // A repeating task can be removed from this day only, or deleted from every day
+                        Object[] options = {"This day", "Every day", "Cancel"};
+                        int result = JOptionPane.showOptionDialog(mainPanel, new JLabel("Delete " + t.getTitle() + " from this day or from every day?"), "Delete " + t.getTitle() + "?",
+                                JOptionPane.YES_NO_CANCEL_OPTION, JOptionPane.QUESTION_MESSAGE, null, options, options[0]);
+                        if (result == 0) {
+                            frame.dispose();
+                            // Saved as a copy, the task shown keeps its rule until the lists are read again
+                            Task edited = new Task(t);
+                            edited.setRecurrence(recurrence.withException(t.getDate()));
+                            database.async().updateTask(edited).thenRunAsync(model::fireAllTasksChanged, AsyncDatabase.EDT);
+                        } else if (result == 1) {
+                            frame.dispose();
+                            database.async().deleteTask(t.getID()).thenRunAsync(model::fireAllTasksChanged, AsyncDatabase.EDT);
+                        }
+                        return;
+                    }
                     // Check if user is sure to delete task
                     int result = JOptionPane.showConfirmDialog(mainPanel, new JLabel("Are you sure to delete " + t.getTitle() + "?"), "Delete " + t.getTitle() + "?", JOptionPane.YES_NO_OPTION);
                     if (result == JOptionPane.OK_OPTION) {
-                        database.deleteTask(t.getID());
-
-                        // refresh main view
-                        resetMainPanel(parentFrame, parentPanel, t.getDate(), database, new Calendar(year, month, t.getDate(), parentFrame, parentPanel, database));
                         frame.dispose();
+                        // Delete off the event dispatch thread, then refresh the views of the day
+                        database.async().deleteTask(t.getID()).thenRunAsync(() -> model.fireTasksChanged(t.getDate()), AsyncDatabase.EDT);
                     }
                 }
             });
@@ -201,6 +324,14 @@ public class TaskEditor {
                         return;
                     }
 
+                    Recurrence newRecurrence;
+                    try {
+                        newRecurrence = readRecurrence(repeatField, intervalField, untilField, countField, null, t.getDate());
+                    } catch (Exception exception) {
+                        JOptionPane.showMessageDialog(null, "Check end date format dd-MM-yyyy and number of times");
+                        return;
+                    }
+
                     t.setTitle(titleField.getText());
                     t.setDescription(descField.getText());
                     t.setCategory(categoriesField.getSelectedItem().toString());
@@ -211,12 +342,12 @@ public class TaskEditor {
                         JOptionPane.showMessageDialog(null, "Check time format HH:mm");
                         return;
                     }
+                    t.setDuration((Integer) durationField.getValue());
+                    t.setRecurrence(newRecurrence);
 
-                    database.createTask(t);
-                    ArrayList<Task> tasks = database.getTasks(t.getDateToString());
-                    // refresh main view
-                    resetMainPanel(parentFrame, parentPanel, t.getDate(), database, new Calendar(year, month, t.getDate(), parentFrame, parentPanel, database));
-                    frame.dispose();
+                    // Save off the event dispatch thread, then refresh the views of the day, or of every day if the task repeats
+                    saveWithoutConflicts(frame, saveTaskButton, database, t, () ->
+                            database.async().createTask(t).thenRunAsync(() -> fireTasksChanged(model, t, newRecurrence != null), AsyncDatabase.EDT));
                 }
             });
         }
@@ -227,31 +358,73 @@ public class TaskEditor {
     }
 
     /**
-     * resetMainPanel - Reset the parent panel to reflect the task changes made.
+     * readRecurrence - Create the rule of a repeating task from the repeat fields
      *
-     * @param parentFrame The main frame object
-     * @param parentPanel The parent panel object
-     * @param selectedDay The selected day in the calendar
-     * @param database    The database object
-     * @param c           The calendar object
+     * @param repeatField   The repeat drop down
+     * @param intervalField The interval spinner
+     * @param untilField    The end date field, dd-MM-yyyy or empty
+     * @param countField    The number of times field, or empty
+     * @param old           The rule the task had, its first day and removed days are kept, or null
+     * @param date          The day the task is edited on, the first day of a task which did not repeat
+     * @return The rule, or null if the task does not repeat
+     * @throws RuntimeException If the end date or number of times cannot be read
+     */
+    private static Recurrence readRecurrence(JComboBox<String> repeatField, JSpinner intervalField, JTextField untilField, JTextField countField,
+                                             Recurrence old, LocalDate date) {
+        int repeat = repeatField.getSelectedIndex();
+        if (repeat == 0) {
+            return null;
+        }
+        LocalDate until = untilField.getText().trim().isEmpty() ? null : LocalDate.parse(untilField.getText().trim(), dateFormatter);
+        int count = countField.getText().trim().isEmpty() ? 0 : Integer.parseInt(countField.getText().trim());
+        LocalDate start = old == null ? date : old.getStart();
+        SortedSet<LocalDate> exceptions = old == null ? new TreeSet<>() : old.getExceptions();
+        return new Recurrence(Recurrence.Frequency.values()[repeat - 1], (Integer) intervalField.getValue(), start, until, count, exceptions);
+    }
+
+    /**
+     * saveWithoutConflicts - Look for the tasks which overlap a task off the event dispatch thread before saving it.
+     * The task is saved straight away if nothing overlaps it, otherwise only if the user chooses to save it anyway.
+     * A repeating task is checked on the day it is edited on.
+     *
+     * @param frame      The editor frame, closed when the task is saved
+     * @param saveButton The save button, disabled while the check runs
+     * @param database   The database object
+     * @param t          The task to save
+     * @param save       Saves the task
+     */
+    private static void saveWithoutConflicts(JFrame frame, JButton saveButton, Database database, Task t, Runnable save) {
+        saveButton.setEnabled(false);
+        database.async().read(() -> database.getConflicts(t)).thenAcceptAsync(conflicts -> {
+            if (!conflicts.isEmpty()) {
+                StringBuilder message = new StringBuilder(t.getTimeRangeToString()).append(" overlaps with:\n");
+                for (int i = 0; i < conflicts.size() && i < maxConflictsShown; i++) {
+                    Task conflict = conflicts.get(i);
+                    message.append(conflict.getTimeRangeToString()).append("  ").append(conflict.getTitle()).append('\n');
+                }
+                if (conflicts.size() > maxConflictsShown) {
+                    message.append("and ").append(conflicts.size() - maxConflictsShown).append(" more\n");
+                }
+                message.append("\nSave anyway?");
+                int result = JOptionPane.showConfirmDialog(frame, message.toString(), "Overlapping tasks", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+                if (result != JOptionPane.YES_OPTION) {
+                    saveButton.setEnabled(true);
+                    return;
+                }
+            }
+            frame.dispose();
+            save.run();
+        }, AsyncDatabase.EDT);
+    }
+
+    /**
+     * fireTasksChanged - Refresh the views of the day of a task, or of every day for a repeating task
      */
-    private static void resetMainPanel(JFrame parentFrame, JPanel parentPanel, LocalDate selectedDay, Database database, Calendar c) {
-        String name = parentPanel.getClass().toString();
-
-        // Decides which panel to reset and return to.
-        // Checks if the parent panel is DaySchedule or Home
-        if (name.contains("DaySchedule")) {
-            parentFrame.getContentPane().removeAll();
-            DaySchedule daySchedulePanel = new DaySchedule(parentFrame, selectedDay, database);
-            daySchedulePanel.validate();
-            parentFrame.add(daySchedulePanel);
-            parentFrame.revalidate();
+    private static void fireTasksChanged(CalendarModel model, Task t, boolean repeats) {
+        if (repeats) {
+            model.fireAllTasksChanged();
         } else {
-            parentFrame.getContentPane().removeAll();
-            Home home = new Home(parentFrame, database, selectedDay);
-            home.validate();
-            parentFrame.add(home);
-            parentFrame.revalidate();
+            model.fireTasksChanged(t.getDate());
         }
     }
 }
@@ -0,0 +1,35 @@
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Audreen Soh
+ * <p>
+ * This class implements the list model of the tasks list on the home page, backed directly by the task objects.
+ */
+public class TaskListModel extends AbstractListModel<Task> {
+    private List<Task> tasks = new ArrayList<>();
+
+    /**
+     * setTasks - Replace the tasks shown, with one change event for the whole list
+     *
+     * @param tasks The tasks to show
+     */
+    public void setTasks(List<Task> tasks) {
+        int rows = Math.max(this.tasks.size(), tasks.size());
+        this.tasks = tasks;
+        if (rows > 0) {
+            fireContentsChanged(this, 0, rows - 1);
+        }
+    }
+
+    @Override
+    public int getSize() {
+        return tasks.size();
+    }
+
+    @Override
+    public Task getElementAt(int index) {
+        return tasks.get(index);
+    }
+}
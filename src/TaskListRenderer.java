@@ -0,0 +1,80 @@
+import javax.swing.*;
+import javax.swing.border.Border;
+import java.awt.*;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author Audreen Soh
+ * <p>
+ * This class renders the task cards of the tasks list on the home page.
+ * One renderer paints every visible row, so the list only needs components for the renderer itself,
+ * however many tasks there are.
+ */
+public class TaskListRenderer extends JPanel implements ListCellRenderer<Task> {
+    // Height of a task card, including the gap under it
+    public static final int ROW_HEIGHT = 85;
+    // Width of the checkbox area on the right of a task card
+    public static final int CHECKBOX_WIDTH = 70;
+
+    private final JLabel title = new JLabel();
+    private final JLabel checkBox = new JLabel();
+    private final JLabel time = new JLabel();
+    private final Icon notSelected = UIResources.icon("check-box-not-selected.png");
+    private final Icon selected = UIResources.icon("check-box-selected.png");
+    // Card borders by category, the line color is based on the task category
+    private final Map<String, Border> borders = new HashMap<>();
+
+    /**
+     * Class constructor.
+     */
+    public TaskListRenderer() {
+        super(new GridLayout(2, 2));
+        setBackground(UIResources.color("#e3deca"));
+
+        // taskTop is the panel for the title and checkbox.
+        JPanel taskTop = new JPanel(new BorderLayout());
+        taskTop.setBackground(null);
+        title.setBorder(BorderFactory.createEmptyBorder(0, 30, 0, 30));
+        title.setFont(UIResources.font(Font.PLAIN, 20));
+        title.setForeground(UIResources.color("#5c2c0c"));
+        taskTop.add(title, BorderLayout.WEST);
+        checkBox.setHorizontalAlignment(JLabel.CENTER);
+        checkBox.setPreferredSize(new Dimension(CHECKBOX_WIDTH, 20));
+        taskTop.add(checkBox, BorderLayout.EAST);
+
+        // Set up time label to be shown under taskTop(title and checkbox).
+        time.setBorder(BorderFactory.createEmptyBorder(5, 15, 5, 15));
+        time.setFont(UIResources.font(Font.PLAIN, 15));
+        time.setForeground(Color.DARK_GRAY);
+        add(taskTop);
+        add(time);
+    }
+
+    @Override
+    public Component getListCellRendererComponent(JList<? extends Task> list, Task task, int index, boolean isSelected, boolean cellHasFocus) {
+        title.setText(task.getTitle());
+        time.setText(task.getDateTimeToString());
+        checkBox.setIcon(task.isDone() ? selected : notSelected);
+        setBorder(getBorder(task.getCategory()));
+        return this;
+    }
+
+    /**
+     * getBorder - Get the card border of a category.
+     * Sets the left borderline before task title, with a white gap under the card.
+     *
+     * @param category The task category
+     * @return The border
+     */
+    private Border getBorder(String category) {
+        Border border = borders.get(category);
+        if (border == null) {
+            border = BorderFactory.createCompoundBorder(BorderFactory.createMatteBorder(0, 0, 5, 0, Color.WHITE),
+                    BorderFactory.createCompoundBorder(BorderFactory.createEmptyBorder(15, 20, 15, 20),
+                            BorderFactory.createMatteBorder(0, 10, 0, 0, UIResources.categoryColor(category))));
+            borders.put(category, border);
+        }
+        return border;
+    }
+}
@@ -0,0 +1,121 @@
+import javax.swing.table.AbstractTableModel;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * @author Audreen Soh
+ * <p>
+ * This class implements the table model of the tasks table on the day page, backed directly by the task objects.
+ * The tasks which overlap another task of the day are found with an interval tree whenever the tasks are set.
+ */
+public class TaskTableModel extends AbstractTableModel {
+    public static final int NUMBER = 0;
+    public static final int TIME = 1;
+    public static final int TITLE = 2;
+    public static final int CATEGORY = 3;
+    public static final int DONE = 4;
+
+    private static final String[] columns = {"", "Time", "Task", "Category", "Done"};
+
+    private List<Task> tasks;
+    // IDs of the tasks which overlap another task
+    private Set<Integer> overlappingIDs;
+    private final Consumer<Task> doneChanged;
+
+    /**
+     * Class constructor.
+     *
+     * @param tasks       The tasks to show
+     * @param doneChanged Called when the done checkbox of a task is changed
+     */
+    public TaskTableModel(List<Task> tasks, Consumer<Task> doneChanged) {
+        this.tasks = tasks;
+        this.doneChanged = doneChanged;
+        this.overlappingIDs = new HashSet<>(new IntervalTree(tasks).overlappingIDs());
+    }
+
+    /**
+     * setTasks - Replace the tasks shown in the table
+     *
+     * @param tasks The tasks to show
+     */
+    public void setTasks(List<Task> tasks) {
+        this.tasks = tasks;
+        this.overlappingIDs = new HashSet<>(new IntervalTree(tasks).overlappingIDs());
+        fireTableDataChanged();
+    }
+
+    /**
+     * getTask - Get the task shown in a row
+     *
+     * @param row The row index
+     * @return The task
+     */
+    public Task getTask(int row) {
+        return tasks.get(row);
+    }
+
+    /**
+     * isOverlapping - Check if the task shown in a row overlaps another task of the day
+     *
+     * @param row The row index
+     * @return true if the task overlaps another task
+     */
+    public boolean isOverlapping(int row) {
+        return overlappingIDs.contains(tasks.get(row).getID());
+    }
+
+    @Override
+    public int getRowCount() {
+        return tasks.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == DONE ? Boolean.class : String.class;
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return column == DONE;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Task t = tasks.get(row);
+        switch (column) {
+            case NUMBER:
+                return Integer.toString(row + 1);
+            case TIME:
+                return t.getTimeRangeToString();
+            case TITLE:
+                return t.getTitle();
+            case CATEGORY:
+                return t.getCategory();
+            default:
+                return t.isDone();
+        }
+    }
+
+    @Override
+    public void setValueAt(Object value, int row, int column) {
+        if (column == DONE) {
+            Task t = tasks.get(row);
+            t.setDone((Boolean) value);
+            fireTableCellUpdated(row, column);
+            doneChanged.accept(t);
+        }
+    }
+}
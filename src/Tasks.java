@@ -2,172 +2,170 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 
 /**
  * @author Audreen Soh
  * <p>
- * This class retrieves and shows the list of tasks.
+ * This class retrieves and shows the list of tasks of the day selected in the calendar.
  */
-public class Tasks extends JPanel {
+public class Tasks extends JPanel implements CalendarModel.Listener {
+    private final CalendarModel model;
+    private final Database database;
+
+    // Placeholder shown until the tasks are first loaded
+    private final JLabel loading;
+    private final TaskListModel listModel = new TaskListModel();
+    private final JList<Task> list = new JList<>(listModel);
+    private final JScrollPane scrollPane = new JScrollPane(list);
 
     /**
      * Class constructor.
      *
-     * @param date      The date and time of the task
-     * @param database  The database object
-     * @param frame     The main frame object
-     * @param mainPanel The parent panel object
+     * @param model    The calendar model holding the selected day
+     * @param database The database object
      */
-    public Tasks(LocalDate date, Database database, JFrame frame, JPanel mainPanel) {
+    public Tasks(CalendarModel model, Database database) {
+        this.model = model;
+        this.database = database;
+
         //Set up tasks panel
         setPreferredSize(new Dimension(400, 400));
         setLayout(new BorderLayout(10, 10));
         setBackground(Color.WHITE);
         setBorder(BorderFactory.createEmptyBorder(20, 10, 15, 10));
 
+        // Show a placeholder until the tasks are loaded
+        loading = new JLabel("Loading tasks...");
+        loading.setHorizontalAlignment(JLabel.CENTER);
+        loading.setFont(UIResources.font(Font.PLAIN, 15));
+        loading.setForeground(Color.DARK_GRAY);
+        add(loading, BorderLayout.CENTER);
+
         //Add tasks to panel
-        createTasksSection(date, database, frame, mainPanel);
+        createTasksSection();
+        loadTasks(model.getSelectedDay());
+        model.addListener(this);
     }
 
     /**
-     * createTasksSection - Retrieves tasks rom database and set up the panels to show the list of tasks.
-     *
-     * @param date      The date and time of the task
-     * @param database  The database object
-     * @param frame     The main frame object
-     * @param mainPanel The parent panel object
+     * createTasksSection - Set up the list to show the tasks, the new button and the search button.
+     * The list paints only its visible rows with a shared renderer, so days with many tasks stay cheap to show.
      */
-    private void createTasksSection(LocalDate date, Database database, JFrame frame, JPanel mainPanel) {
-        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern(("dd-MM-yyyy"));
-        // Get tasks from database
-        ArrayList<Task> tasks = database.getTasks(dateFormatter.format(date));
-        // Default rows to 4, reserves the default size of the tasks panel if tasks arraylist size is less than 4
-        int rows = 4;
-        // Increase the row size if tasks arraylist size is more than 4
-        if (tasks.size() > 4) {
-            rows = tasks.size();
-        }
-
-        // Panel to store the list of tasks
-        JPanel list = new JPanel(new GridLayout(rows, 1, 10, 5));
+    private void createTasksSection() {
+        // List of tasks, rows have a fixed height so the list never measures every row
+        list.setCellRenderer(new TaskListRenderer());
+        list.setFixedCellHeight(TaskListRenderer.ROW_HEIGHT);
         list.setBackground(Color.WHITE);
-
-        // Scroll pane for tasks, works when tasks size is more than 4
-        JScrollPane scrollPane = new JScrollPane(list);
-
-        // Loop through tasks and create every task item for that specific date
-        for (int i = 0; i < tasks.size(); i++) {
-            final int j = i;
-            // Panel to store a task
-            JPanel task = new JPanel(new GridLayout(2, 2));
-            task.setPreferredSize(new Dimension(400,80));
-            // Sets the left borderline before task title.
-            // The line color is based on the task category(5 categories, 5 different colors) type.
-            task.setBorder(BorderFactory.createCompoundBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20), BorderFactory.createMatteBorder(0, 10, 0, 0, Color.decode(getTaskColor(tasks.get(i).getCategory())))));
-            task.setBackground(Color.decode("#e3deca"));
-            task.setCursor(new Cursor(Cursor.HAND_CURSOR));
-            task.addMouseListener(new MouseListener() {
-                @Override
-                public void mouseClicked(MouseEvent e) {
-                    // Opens task editor to edit selected task
-                    new TaskEditor(tasks.get(j), database, frame, mainPanel);
-                }
-
-                @Override
-                public void mousePressed(MouseEvent e) {
-                }
-
-                @Override
-                public void mouseReleased(MouseEvent e) {
-                }
-
-                @Override
-                public void mouseEntered(MouseEvent e) {
-                }
-
-                @Override
-                public void mouseExited(MouseEvent e) {
+        list.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int index = list.locationToIndex(e.getPoint());
+                Rectangle cell = index < 0 ? null : list.getCellBounds(index, index);
+                if (cell == null || !cell.contains(e.getPoint())) {
+                    return;
                 }
-            });
-
-            // taskTop is the panel for the title and checkbox.
-            JPanel taskTop = new JPanel(new BorderLayout());
-            taskTop.setBackground(null);
-            // Set up title label in task
-            JLabel title = new JLabel(tasks.get(i).getTitle());
-            title.setBorder(BorderFactory.createEmptyBorder(0, 30, 0, 30));
-            title.setFont(new Font("Helvetica", Font.PLAIN, 20));
-            title.setForeground(Color.decode("#5c2c0c"));
-            taskTop.add(title, BorderLayout.WEST);
-
-            // Set up checkbox using custom image icon.
-            Icon notSelected = new ImageIcon("resources/check-box-not-selected.png");
-            Icon selected = new ImageIcon("resources/check-box-selected.png");
-            JCheckBox checkBox = new JCheckBox();
-            checkBox.setBackground(null);
-            checkBox.setSelected(tasks.get(i).isDone());
-            checkBox.setIcon(notSelected);
-            checkBox.setSelectedIcon(selected);
-            checkBox.addItemListener(new ItemListener() {
-                @Override
-                public void itemStateChanged(ItemEvent e) {
+                Task t = listModel.getElementAt(index);
+                if (e.getX() >= cell.x + cell.width - TaskListRenderer.CHECKBOX_WIDTH && e.getY() < cell.y + cell.height / 2) {
                     // Writes to database when checkbox state is changed.
-                    Task t = tasks.get(j);
-                    t.setDone(checkBox.isSelected());
-                    database.updateTask(t);
+                    t.setDone(!t.isDone());
+                    list.repaint(cell);
+                    database.async().updateTask(t);
+                } else {
+                    // Opens task editor to edit selected task
+                    new TaskEditor(t, database, model);
                 }
-            });
-            taskTop.add(checkBox, BorderLayout.EAST);
-
-            // Set up time label to be shown under taskTop(title and checkbox).
-            JLabel time = new JLabel(tasks.get(i).getDateTimeToString());
-            time.setBorder(BorderFactory.createEmptyBorder(5, 15, 5, 15));
-            time.setFont(new Font("Helvetica", Font.PLAIN, 15));
-            time.setForeground(Color.DARK_GRAY);
-            task.add(taskTop);
-            task.add(time);
-            list.add(task);
-        }
-        add(scrollPane, BorderLayout.CENTER);
+            }
+        });
 
         // Set up new button to add new task from home page
         JButton newTaskButton = new JButton("New");
-        newTaskButton.setFont(new Font("Helvetica", Font.PLAIN, 15));
-        newTaskButton.setBackground(Color.decode("#dda35d"));
+        newTaskButton.setFont(UIResources.font(Font.PLAIN, 15));
+        newTaskButton.setBackground(UIResources.color("#dda35d"));
         newTaskButton.setForeground(Color.WHITE);
         newTaskButton.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
         newTaskButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                // Opens task editor to add new task
-                new TaskEditor(new Task(date), database, frame, mainPanel);
+                // Opens task editor to add new task on the selected day
+                new TaskEditor(new Task(model.getSelectedDay()), database, model);
             }
         });
-        add(newTaskButton, BorderLayout.SOUTH);
+
+        // Set up search button to find tasks and notes on any day, also opened with Ctrl+F
+        JButton searchButton = new JButton("Search");
+        searchButton.setFont(UIResources.font(Font.PLAIN, 15));
+        searchButton.setBackground(UIResources.color("#dda35d"));
+        searchButton.setForeground(Color.WHITE);
+        searchButton.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+        Action openSearch = new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                new SearchDialog(SwingUtilities.getWindowAncestor(Tasks.this), model, database);
+            }
+        };
+        searchButton.addActionListener(openSearch);
+        getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_F, InputEvent.CTRL_DOWN_MASK), "search");
+        getActionMap().put("search", openSearch);
+
+        // Set up import button to add the events of an iCalendar file as tasks
+        JButton importButton = new JButton("Import");
+        importButton.setFont(UIResources.font(Font.PLAIN, 15));
+        importButton.setBackground(UIResources.color("#dda35d"));
+        importButton.setForeground(Color.WHITE);
+        importButton.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+        importButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                new IcsImport(Tasks.this, model, database);
+            }
+        });
+
+        JPanel buttons = new JPanel(new GridLayout(1, 3, 10, 0));
+        buttons.setBackground(null);
+        buttons.add(newTaskButton);
+        buttons.add(searchButton);
+        buttons.add(importButton);
+        add(buttons, BorderLayout.SOUTH);
     }
 
     /**
-     * getTaskColor - Get the corresponding color base on the task category
+     * loadTasks - Retrieves the tasks of a day from the database off the event dispatch thread and show them.
      *
-     * @param category The task category passed in for checking
-     * @return A string that represents the color hex
+     * @param date The date of the tasks
      */
-    private String getTaskColor(String category) {
-        switch (category) {
-            case "General":
-                return "#666822";
-            case "Holiday":
-                return "#c67713";
-            case "Personal":
-                return "#c1380a";
-            case "Meeting":
-                return "#742505";
-            case "Social":
-                return "#4d2508";
-            default:
-                return "#666822";
+    private void loadTasks(LocalDate date) {
+        long start = System.nanoTime();
+        database.async().getTasks(date).thenAcceptAsync(tasks -> {
+            // Skip the result if another day was selected in the meantime
+            if (!date.equals(model.getSelectedDay())) {
+                return;
+            }
+            if (loading.getParent() == this) {
+                remove(loading);
+                add(scrollPane, BorderLayout.CENTER);
+                revalidate();
+            }
+            listModel.setTasks(tasks);
+            // From the request until the list shows the tasks
+            Metrics.record("UI.Tasks.reload", start);
+        }, AsyncDatabase.EDT);
+    }
+
+    @Override
+    public void selectedDayChanged(LocalDate oldDay, LocalDate newDay) {
+        loadTasks(newDay);
+    }
+
+    @Override
+    public void tasksChanged(LocalDate date) {
+        if (date.equals(model.getSelectedDay())) {
+            loadTasks(date);
         }
     }
+
+    @Override
+    public void allTasksChanged() {
+        loadTasks(model.getSelectedDay());
+    }
 }
@@ -0,0 +1,81 @@
+import javax.swing.*;
+import java.awt.*;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author Audreen Soh
+ * <p>
+ * This class holds the images, fonts and colors shared by all the panels.
+ * Each resource is created the first time it is asked for and reused after that,
+ * so rebuilding a panel does not decode images or allocate fonts again.
+ */
+public final class UIResources {
+    private static final String fontName = "Helvetica";
+
+    private static final Map<String, ImageIcon> icons = new ConcurrentHashMap<>();
+    private static final Map<Integer, Font> fonts = new ConcurrentHashMap<>();
+    private static final Map<String, Color> colors = new ConcurrentHashMap<>();
+
+    private UIResources() {
+    }
+
+    /**
+     * icon - Get an image from the resources.
+     * The image is loaded from the classpath, which works inside the jar, or else from the resources folder.
+     *
+     * @param name The image file name, for example "add.png"
+     * @return The image icon
+     */
+    public static ImageIcon icon(String name) {
+        return icons.computeIfAbsent(name, n -> {
+            URL url = UIResources.class.getResource("/" + n);
+            return url != null ? new ImageIcon(url) : new ImageIcon("resources/" + n);
+        });
+    }
+
+    /**
+     * font - Get the application font in a style and size
+     *
+     * @param style The font style, for example Font.BOLD
+     * @param size  The font size
+     * @return The font
+     */
+    public static Font font(int style, int size) {
+        return fonts.computeIfAbsent(style << 16 | size, key -> new Font(fontName, style, size));
+    }
+
+    /**
+     * color - Get the color of a hex string
+     *
+     * @param hex The color hex, for example "#c1380a"
+     * @return The color
+     */
+    public static Color color(String hex) {
+        return colors.computeIfAbsent(hex, Color::decode);
+    }
+
+    /**
+     * categoryColor - Get the corresponding color base on the task category
+     *
+     * @param category The task category passed in for checking
+     * @return The category color
+     */
+    public static Color categoryColor(String category) {
+        switch (category) {
+            case "General":
+                return color("#666822");
+            case "Holiday":
+                return color("#c67713");
+            case "Personal":
+                return color("#c1380a");
+            case "Meeting":
+                return color("#742505");
+            case "Social":
+                return color("#4d2508");
+            default:
+                return color("#666822");
+        }
+    }
+}